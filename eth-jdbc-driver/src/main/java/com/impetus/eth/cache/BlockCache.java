@@ -0,0 +1,335 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.cache;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+/**
+ * Cache of blocks, keyed by number and hash, and of transactions, keyed by hash. A connection owns one, or shares
+ * the one of its endpoint when asked to. A block fetched with transaction hashes only does not answer lookups that
+ * need full transaction objects.
+ * <p>
+ * Blocks deeper than the confirmation depth below the last seen head are kept until evicted. Blocks above it may
+ * still be reorganised, so they are kept apart for a short time only, and every new head is followed down its
+ * {@code parentHash} chain to drop the ones which are no longer on it. Until the first head is seen all blocks are
+ * taken as confirmed, so callers advance the head before putting blocks fetched near it.
+ */
+public class BlockCache {
+
+    /** How long a block above the confirmation depth answers lookups without being checked against a new head. */
+    static final long RECENT_BLOCK_TTL_MILLIS = 15000;
+
+    private static final Map<String, BlockCache> SHARED_CACHES = new HashMap<>();
+
+    private final TinyLfuCache<BigInteger, Block> blocks;
+
+    private final TinyLfuCache<String, BigInteger> blockNumbers;
+
+    private final TinyLfuCache<String, Transaction> transactions;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final int confirmationDepth;
+
+    private final TreeMap<BigInteger, RecentBlock> recentBlocks = new TreeMap<>();
+
+    private BigInteger headNumber;
+
+    private String sharedKey;
+
+    private int references;
+
+    public BlockCache(int blockCacheSize, int transactionCacheSize) {
+        this(blockCacheSize, transactionCacheSize, 0);
+    }
+
+    public BlockCache(int blockCacheSize, int transactionCacheSize, int confirmationDepth) {
+        this.blocks = new TinyLfuCache<>(blockCacheSize);
+        this.blockNumbers = new TinyLfuCache<>(blockCacheSize);
+        this.transactions = transactionCacheSize > 0 ? new TinyLfuCache<>(transactionCacheSize) : null;
+        this.confirmationDepth = confirmationDepth;
+    }
+
+    public static BlockCache getShared(String endpoint, int blockCacheSize, int transactionCacheSize) {
+        return getShared(endpoint, blockCacheSize, transactionCacheSize, 0);
+    }
+
+    /**
+     * Returns the cache shared by the connections to the endpoint with the same sizes and confirmation depth,
+     * creating it on first use. The cache is dropped when the last of them releases it.
+     */
+    public static BlockCache getShared(String endpoint, int blockCacheSize, int transactionCacheSize,
+            int confirmationDepth) {
+        String key = endpoint + "#" + blockCacheSize + "#" + transactionCacheSize + "#" + confirmationDepth;
+        synchronized (SHARED_CACHES) {
+            BlockCache cache = SHARED_CACHES.get(key);
+            if (cache == null) {
+                cache = new BlockCache(blockCacheSize, transactionCacheSize, confirmationDepth);
+                cache.sharedKey = key;
+                SHARED_CACHES.put(key, cache);
+            }
+            cache.references++;
+            return cache;
+        }
+    }
+
+    /**
+     * Releases a cache taken from {@link #getShared}. A cache owned by one connection needs no release.
+     */
+    public void release() {
+        if (sharedKey == null) {
+            return;
+        }
+        synchronized (SHARED_CACHES) {
+            if (--references == 0) {
+                SHARED_CACHES.remove(sharedKey);
+            }
+        }
+    }
+
+    public Block getBlock(BigInteger blockNumber, boolean fullTransactionObjects) {
+        return record(findBlock(blockNumber, fullTransactionObjects));
+    }
+
+    public Block getBlockByHash(String blockHash, boolean fullTransactionObjects) {
+        BigInteger blockNumber = blockNumbers.get(blockHash);
+        if (blockNumber == null) {
+            blockNumber = findRecentBlockNumber(blockHash);
+        }
+        return record(blockNumber == null ? null : findBlock(blockNumber, fullTransactionObjects));
+    }
+
+    private Block findBlock(BigInteger blockNumber, boolean fullTransactionObjects) {
+        Block block = blocks.get(blockNumber);
+        if (block == null) {
+            block = findRecentBlock(blockNumber);
+        }
+        if (block != null && fullTransactionObjects && !hasTransactionObjects(block)) {
+            return null;
+        }
+        return block;
+    }
+
+    private synchronized Block findRecentBlock(BigInteger blockNumber) {
+        RecentBlock recent = recentBlocks.get(blockNumber);
+        if (recent == null) {
+            return null;
+        }
+        if (recent.isExpired(System.currentTimeMillis())) {
+            recentBlocks.remove(blockNumber);
+            return null;
+        }
+        return recent.block;
+    }
+
+    private synchronized BigInteger findRecentBlockNumber(String blockHash) {
+        for (Map.Entry<BigInteger, RecentBlock> entry : recentBlocks.entrySet()) {
+            if (blockHash.equals(entry.getValue().block.getHash())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private <T> T record(T value) {
+        if (value == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    public void putBlock(Block block) {
+        if (block == null || block.getNumberRaw() == null) {
+            return;
+        }
+        if (isConfirmed(block.getNumber())) {
+            putConfirmedBlock(block);
+        } else {
+            putRecentBlock(block);
+        }
+    }
+
+    private void putConfirmedBlock(Block block) {
+        BigInteger blockNumber = block.getNumber();
+        if (!hasTransactionObjects(block)) {
+            Block cached = blocks.peek(blockNumber);
+            if (cached != null && cached.getHash().equals(block.getHash()) && hasTransactionObjects(cached)) {
+                // keep the copy which can answer both kinds of lookups
+                return;
+            }
+        } else if (transactions != null) {
+            for (TransactionResult<?> txnResult : block.getTransactions()) {
+                Transaction txnInfo = (Transaction) txnResult.get();
+                transactions.put(txnInfo.getHash(), txnInfo);
+            }
+        }
+        blocks.put(blockNumber, block);
+        blockNumbers.put(block.getHash(), blockNumber);
+    }
+
+    /**
+     * Keeps a block which may still be reorganised. Cached neighbours which do not link to it by {@code parentHash}
+     * are taken to be orphaned, along with everything cached beyond them.
+     */
+    private synchronized void putRecentBlock(Block block) {
+        BigInteger blockNumber = block.getNumber();
+        RecentBlock cached = recentBlocks.get(blockNumber);
+        if (cached != null && cached.block.getHash().equals(block.getHash()) && !hasTransactionObjects(block)
+                && hasTransactionObjects(cached.block)) {
+            return;
+        }
+        RecentBlock parent = recentBlocks.get(blockNumber.subtract(BigInteger.ONE));
+        if (parent != null && !parent.block.getHash().equals(block.getParentHash())) {
+            recentBlocks.headMap(blockNumber, false).clear();
+        }
+        RecentBlock child = recentBlocks.get(blockNumber.add(BigInteger.ONE));
+        if (child != null && !block.getHash().equals(child.block.getParentHash())) {
+            recentBlocks.tailMap(blockNumber, false).clear();
+        }
+        recentBlocks.put(blockNumber, new RecentBlock(block, System.currentTimeMillis() + RECENT_BLOCK_TTL_MILLIS));
+    }
+
+    /**
+     * Checks the recent blocks against a new chain head. Blocks reached from the head through {@code parentHash}
+     * links are kept, and moved to the long lived cache once they are confirmed; blocks off that chain are dropped,
+     * and the ones which can not be reached for a gap are kept until they expire or become confirmed unchecked.
+     */
+    public synchronized void advanceHead(Block head) {
+        if (head == null || head.getNumberRaw() == null) {
+            return;
+        }
+        headNumber = head.getNumber();
+        BigInteger confirmedHeight = headNumber.subtract(BigInteger.valueOf(confirmationDepth));
+        long now = System.currentTimeMillis();
+        recentBlocks.tailMap(headNumber, false).clear();
+        putRecentBlock(head);
+        BigInteger expectedNumber = headNumber;
+        String expectedHash = head.getHash();
+        Iterator<Map.Entry<BigInteger, RecentBlock>> entries = recentBlocks.descendingMap().entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<BigInteger, RecentBlock> entry = entries.next();
+            RecentBlock recent = entry.getValue();
+            boolean linked = false;
+            boolean orphaned = false;
+            if (expectedHash != null && entry.getKey().equals(expectedNumber)) {
+                linked = expectedHash.equals(recent.block.getHash());
+                orphaned = !linked;
+                expectedHash = linked ? recent.block.getParentHash() : null;
+                expectedNumber = expectedNumber.subtract(BigInteger.ONE);
+            } else {
+                expectedHash = null;
+            }
+            boolean confirmed = entry.getKey().compareTo(confirmedHeight) <= 0;
+            if (linked && confirmed) {
+                entries.remove();
+                putConfirmedBlock(recent.block);
+            } else if (linked) {
+                entry.setValue(new RecentBlock(recent.block, now + RECENT_BLOCK_TTL_MILLIS));
+            } else if (orphaned || confirmed || recent.isExpired(now)) {
+                entries.remove();
+            }
+        }
+    }
+
+    private synchronized boolean isConfirmed(BigInteger blockNumber) {
+        return headNumber == null
+                || blockNumber.compareTo(headNumber.subtract(BigInteger.valueOf(confirmationDepth))) <= 0;
+    }
+
+    public Transaction getTransaction(String transactionHash) {
+        return record(transactions == null ? null : transactions.get(transactionHash));
+    }
+
+    /**
+     * Keeps a transaction fetched on its own. Pending transactions, and ones in blocks which may still be
+     * reorganised, are not kept.
+     */
+    public void putTransaction(Transaction transaction) {
+        if (transactions != null && transaction != null && transaction.getBlockNumberRaw() != null
+                && isConfirmed(transaction.getBlockNumber())) {
+            transactions.put(transaction.getHash(), transaction);
+        }
+    }
+
+    public void invalidateBlock(BigInteger blockNumber) {
+        blocks.invalidate(blockNumber);
+        synchronized (this) {
+            recentBlocks.remove(blockNumber);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return blocks.getEvictionCount() + (transactions == null ? 0 : transactions.getEvictionCount());
+    }
+
+    public int getBlockCount() {
+        synchronized (this) {
+            return blocks.size() + recentBlocks.size();
+        }
+    }
+
+    public synchronized BigInteger getHeadNumber() {
+        return headNumber;
+    }
+
+    public int getTransactionCount() {
+        return transactions == null ? 0 : transactions.size();
+    }
+
+    static boolean hasTransactionObjects(Block block) {
+        List<TransactionResult> txnResults = block.getTransactions();
+        return txnResults == null || txnResults.isEmpty() || txnResults.get(0) instanceof TransactionObject;
+    }
+
+    private static class RecentBlock {
+
+        private final Block block;
+
+        private final long expiresAt;
+
+        RecentBlock(Block block, long expiresAt) {
+            this.block = block;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
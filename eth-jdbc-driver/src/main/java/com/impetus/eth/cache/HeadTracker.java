@@ -0,0 +1,143 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.cache;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+
+/**
+ * Height of the chain head as last read from the node, shared by the statements of a connection. The height is read
+ * again when it is older than the maximum staleness, either on demand or by a background thread. With a block cache
+ * the head block itself is read, so that the cache can check its recent blocks against the new head.
+ */
+public class HeadTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeadTracker.class);
+
+    private final Web3j web3jClient;
+
+    private final BlockCache blockCache;
+
+    private final long maxStalenessNanos;
+
+    private volatile Head head;
+
+    private ScheduledExecutorService refresher;
+
+    public HeadTracker(Web3j web3jClient, BlockCache blockCache, long maxStalenessMillis) {
+        this.web3jClient = web3jClient;
+        this.blockCache = blockCache;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+    }
+
+    /**
+     * Returns the height of the chain head, reading it from the node only when the known one is too old.
+     */
+    public BigInteger getHeight() throws IOException {
+        Head current = head;
+        if (current != null && current.isFresh(maxStalenessNanos)) {
+            return current.height;
+        }
+        synchronized (this) {
+            current = head;
+            if (current != null && current.isFresh(maxStalenessNanos)) {
+                return current.height;
+            }
+            return refresh();
+        }
+    }
+
+    /**
+     * Reads the chain head from the node.
+     */
+    public synchronized BigInteger refresh() throws IOException {
+        BigInteger height;
+        if (blockCache != null) {
+            LOGGER.debug("Getting head block ");
+            Block block = web3jClient.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).send().getBlock();
+            blockCache.advanceHead(block);
+            height = block.getNumber();
+        } else {
+            LOGGER.debug("Getting block height ");
+            height = web3jClient.ethBlockNumber().send().getBlockNumber();
+        }
+        head = new Head(height, System.nanoTime());
+        return height;
+    }
+
+    /**
+     * Takes a head pushed by the node, which keeps the height fresh without reading it.
+     */
+    public synchronized void onNewHead(Block header) {
+        if (blockCache != null) {
+            blockCache.advanceHead(header);
+        }
+        head = new Head(header.getNumber(), System.nanoTime());
+    }
+
+    /**
+     * Keeps the height fresh from a daemon thread, so that statements do not wait for the node to read it.
+     */
+    public synchronized void startBackgroundRefresh() {
+        if (refresher != null || maxStalenessNanos <= 0) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eth-head-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                LOGGER.warn("Error refreshing chain head", e);
+            }
+        }, 0, Math.max(maxStalenessNanos / 2, 1), TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    private static class Head {
+
+        private final BigInteger height;
+
+        private final long readAt;
+
+        Head(BigInteger height, long readAt) {
+            this.height = height;
+            this.readAt = readAt;
+        }
+
+        boolean isFresh(long maxStalenessNanos) {
+            return System.nanoTime() - readAt <= maxStalenessNanos;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.cache;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded cache with a W-TinyLFU style eviction policy. New entries go to a small LRU window. An entry evicted
+ * from the window is admitted to the main space only when it has been asked for more often than the entry the main
+ * space would evict, frequencies being estimated by a count-min sketch whose counters are halved periodically. The
+ * main space is a segmented LRU, entries read again while on probation move to the protected segment. One lookup
+ * scan over a range thus cannot flush the blocks that are read over and over.
+ *
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int SKETCH_DEPTH = 4;
+
+    private static final int MAX_FREQUENCY = 15;
+
+    private static final int[] SEEDS = { 0x97cb3127, 0xb7ed7d4b, 0x0bd4c0f1, 0x5e3a8d27 };
+
+    private final int maximumSize;
+
+    private final int windowSize;
+
+    private final int protectedSize;
+
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final byte[][] sketch;
+
+    private final int sketchMask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size should be greater than zero");
+        }
+        this.maximumSize = maximumSize;
+        this.windowSize = Math.max(1, maximumSize / 100);
+        this.protectedSize = (maximumSize - windowSize) * 4 / 5;
+        int width = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+        this.sketch = new byte[SKETCH_DEPTH][width];
+        this.sketchMask = width - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    public synchronized V get(K key) {
+        increment(key);
+        V value = window.get(key);
+        if (value == null) {
+            value = protectedSegment.get(key);
+        }
+        if (value == null) {
+            value = probation.remove(key);
+            if (value != null) {
+                protectedSegment.put(key, value);
+                if (protectedSegment.size() > protectedSize) {
+                    Map.Entry<K, V> demoted = eldest(protectedSegment);
+                    protectedSegment.remove(demoted.getKey());
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+            }
+        }
+        if (value == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value without counting a hit or miss and without adding to its frequency.
+     */
+    public synchronized V peek(K key) {
+        V value = window.get(key);
+        if (value == null) {
+            value = probation.get(key);
+        }
+        if (value == null) {
+            value = protectedSegment.get(key);
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return;
+        } else if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        } else if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+        increment(key);
+        window.put(key, value);
+        if (window.size() > windowSize) {
+            Map.Entry<K, V> candidate = eldest(window);
+            window.remove(candidate.getKey());
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private void admit(K key, V value) {
+        if (probation.size() + protectedSegment.size() < maximumSize - windowSize) {
+            probation.put(key, value);
+            return;
+        }
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        evictionCount++;
+        if (victimSegment.isEmpty()) {
+            return;
+        }
+        Map.Entry<K, V> victim = eldest(victimSegment);
+        if (frequency(key) > frequency(victim.getKey())) {
+            victimSegment.remove(victim.getKey());
+            probation.put(key, value);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static <K, V> Map.Entry<K, V> eldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, V> entry = iterator.next();
+        return new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue());
+    }
+
+    private int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            frequency = Math.min(frequency, sketch[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void increment(K key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            int index = index(hash, i);
+            if (sketch[i][index] < MAX_FREQUENCY) {
+                sketch[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (byte[] row : sketch) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & sketchMask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x85ebca6b;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,139 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.cache;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+/**
+ * Index of the transactions of recently fetched blocks, shared by the statements of a connection. It maps a block
+ * number to the transactions of the block in order, and a transaction hash to its block and position, for the most
+ * recently used blocks up to a maximum count.
+ */
+public class TransactionIndex {
+
+    private final Map<String, TransactionPosition> positions = new HashMap<>();
+
+    private final LinkedHashMap<BigInteger, List<Transaction>> blockTransactions;
+
+    public TransactionIndex(int maxBlocks) {
+        this.blockTransactions = new LinkedHashMap<BigInteger, List<Transaction>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BigInteger, List<Transaction>> eldest) {
+                if (size() <= maxBlocks) {
+                    return false;
+                }
+                for (Transaction transaction : eldest.getValue()) {
+                    positions.remove(transaction.getHash());
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Indexes the transactions of a block fetched with full transaction objects. Blocks with transaction hashes
+     * only are ignored.
+     */
+    public synchronized void putBlock(Block block) {
+        if (block == null || block.getNumberRaw() == null || !BlockCache.hasTransactionObjects(block)) {
+            return;
+        }
+        BigInteger blockNumber = block.getNumber();
+        List<Transaction> previous = blockTransactions.remove(blockNumber);
+        if (previous != null) {
+            for (Transaction transaction : previous) {
+                positions.remove(transaction.getHash());
+            }
+        }
+        List<TransactionResult> txnResults = block.getTransactions();
+        List<Transaction> transactions = new ArrayList<>(txnResults == null ? 0 : txnResults.size());
+        if (txnResults != null) {
+            for (TransactionResult<?> txnResult : txnResults) {
+                Transaction transaction = (Transaction) txnResult.get();
+                positions.put(transaction.getHash(), new TransactionPosition(blockNumber, transactions.size()));
+                transactions.add(transaction);
+            }
+        }
+        blockTransactions.put(blockNumber, Collections.unmodifiableList(transactions));
+    }
+
+    /**
+     * Returns the transactions of the block in order, or null when the block is not indexed.
+     */
+    public synchronized List<Transaction> getTransactions(BigInteger blockNumber) {
+        return blockTransactions.get(blockNumber);
+    }
+
+    public synchronized boolean containsBlock(BigInteger blockNumber) {
+        return blockTransactions.containsKey(blockNumber);
+    }
+
+    /**
+     * Returns the block and position of the transaction, or null when its block is not indexed.
+     */
+    public synchronized TransactionPosition getPosition(String transactionHash) {
+        return positions.get(transactionHash);
+    }
+
+    public synchronized Transaction getTransaction(String transactionHash) {
+        TransactionPosition position = positions.get(transactionHash);
+        if (position == null) {
+            return null;
+        }
+        return blockTransactions.get(position.getBlockNumber()).get(position.getIndex());
+    }
+
+    public synchronized int getBlockCount() {
+        return blockTransactions.size();
+    }
+
+    public synchronized int getTransactionCount() {
+        return positions.size();
+    }
+
+    public static class TransactionPosition {
+
+        private final BigInteger blockNumber;
+
+        private final int index;
+
+        TransactionPosition(BigInteger blockNumber, int index) {
+            this.blockNumber = blockNumber;
+            this.index = index;
+        }
+
+        public BigInteger getBlockNumber() {
+            return blockNumber;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+    }
+}
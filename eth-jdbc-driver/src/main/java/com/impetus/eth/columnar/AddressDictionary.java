@@ -0,0 +1,200 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary of 20 byte addresses, which gives every distinct address an int code. Addresses are kept packed, and
+ * each one is made a string once, so that every row holding an address shares the same string, whose hash is
+ * computed once. Only lower case hex addresses are coded, so that they read back unchanged. Once the dictionary
+ * holds its maximum count of addresses, new addresses are not coded.
+ */
+public class AddressDictionary {
+
+    /** Code of a value which is not in the dictionary. */
+    public static final int NO_CODE = -1;
+
+    private static final int WIDTH = 20;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final int maxEntries;
+
+    private final byte[] key = new byte[WIDTH];
+
+    private byte[] entries = new byte[WIDTH * 64];
+
+    private String[] strings = new String[64];
+
+    private int[] slots = newSlots(128);
+
+    private int size;
+
+    public AddressDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    private static int[] newSlots(int count) {
+        int[] slots = new int[count];
+        Arrays.fill(slots, NO_CODE);
+        return slots;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the code of the address given as characters, adding it when it is new. Returns {@link #NO_CODE} for a
+     * value which is not a lower case hex address, or a new address once the dictionary is full.
+     */
+    public synchronized int encode(char[] chars, int offset, int length) {
+        if (!parse(chars, offset, length)) {
+            return NO_CODE;
+        }
+        int slot = find();
+        if (slots[slot] != NO_CODE || size >= maxEntries) {
+            return slots[slot];
+        }
+        return add(slot, null);
+    }
+
+    /**
+     * Returns the code of the address, without adding it when it is new.
+     */
+    public synchronized int lookup(String address) {
+        if (address == null || !parse(address.toCharArray(), 0, address.length())) {
+            return NO_CODE;
+        }
+        return slots[find()];
+    }
+
+    /**
+     * Returns the string of the dictionary equal to the address, adding the address when it is new, or the address
+     * itself when it can't be coded.
+     */
+    public synchronized String canonical(String address) {
+        if (address == null || !parse(address.toCharArray(), 0, address.length())) {
+            return address;
+        }
+        int slot = find();
+        int code = slots[slot];
+        if (code == NO_CODE) {
+            return size >= maxEntries ? address : strings[add(slot, address)];
+        }
+        if (strings[code] == null) {
+            strings[code] = address;
+        }
+        return strings[code];
+    }
+
+    public synchronized String decode(int code) {
+        String address = strings[code];
+        if (address == null) {
+            char[] chars = new char[2 + 2 * WIDTH];
+            chars[0] = '0';
+            chars[1] = 'x';
+            for (int i = 0, source = code * WIDTH; i < WIDTH; i++, source++) {
+                chars[2 + 2 * i] = HEX_DIGITS[(entries[source] >> 4) & 0xf];
+                chars[3 + 2 * i] = HEX_DIGITS[entries[source] & 0xf];
+            }
+            address = new String(chars);
+            strings[code] = address;
+        }
+        return address;
+    }
+
+    public synchronized byte[] getBytes(int code) {
+        return Arrays.copyOfRange(entries, code * WIDTH, (code + 1) * WIDTH);
+    }
+
+    /**
+     * Packs the address into the key, returns false when it is not a lower case hex address.
+     */
+    private boolean parse(char[] chars, int offset, int length) {
+        if (length != 2 + 2 * WIDTH || chars[offset] != '0' || chars[offset + 1] != 'x') {
+            return false;
+        }
+        for (int i = 0; i < WIDTH; i++) {
+            int high = lowerHexDigit(chars[offset + 2 + 2 * i]);
+            int low = lowerHexDigit(chars[offset + 3 + 2 * i]);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            key[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private static int lowerHexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it belongs.
+     */
+    private int find() {
+        int hash = 1;
+        for (byte b : key) {
+            hash = 31 * hash + b;
+        }
+        int mask = slots.length - 1;
+        for (int slot = (hash ^ (hash >>> 16)) & mask;; slot = (slot + 1) & mask) {
+            int code = slots[slot];
+            if (code == NO_CODE || equalsKey(code)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean equalsKey(int code) {
+        for (int i = 0, entry = code * WIDTH; i < WIDTH; i++, entry++) {
+            if (entries[entry] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(int slot, String address) {
+        int code = size++;
+        if (code == strings.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+            strings = Arrays.copyOf(strings, strings.length * 2);
+        }
+        System.arraycopy(key, 0, entries, code * WIDTH, WIDTH);
+        strings[code] = address;
+        slots[slot] = code;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    private void rehash() {
+        slots = newSlots(slots.length * 2);
+        for (int code = 0; code < size; code++) {
+            System.arraycopy(entries, code * WIDTH, key, 0, WIDTH);
+            slots[find()] = code;
+        }
+    }
+}
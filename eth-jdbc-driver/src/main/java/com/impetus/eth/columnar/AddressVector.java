@@ -0,0 +1,118 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Column of addresses held as int codes of an {@link AddressDictionary}. A value the dictionary doesn't code is kept
+ * as it came.
+ */
+class AddressVector extends ColumnVector {
+
+    private static final int NULL = -2;
+
+    private static final int BOXED = -3;
+
+    private final AddressDictionary dictionary;
+
+    private int[] codes;
+
+    private Object[] boxed;
+
+    AddressVector(int capacity, AddressDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.codes = new int[capacity];
+        Arrays.fill(codes, NULL);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > codes.length) {
+            int length = grow(codes.length, capacity);
+            int previous = codes.length;
+            codes = Arrays.copyOf(codes, length);
+            Arrays.fill(codes, previous, length, NULL);
+            if (boxed != null) {
+                boxed = Arrays.copyOf(boxed, length);
+            }
+        }
+    }
+
+    @Override
+    void set(int row, Object value) {
+        if (value == null) {
+            codes[row] = NULL;
+        } else if (value instanceof String) {
+            String text = (String) value;
+            setHex(row, text.toCharArray(), 0, text.length());
+        } else {
+            box(row, value);
+        }
+    }
+
+    @Override
+    void setHex(int row, char[] chars, int offset, int length) {
+        int code = dictionary.encode(chars, offset, length);
+        if (code == AddressDictionary.NO_CODE) {
+            box(row, new String(chars, offset, length));
+        } else {
+            codes[row] = code;
+        }
+    }
+
+    private void box(int row, Object value) {
+        if (boxed == null) {
+            boxed = new Object[codes.length];
+        }
+        boxed[row] = value;
+        codes[row] = BOXED;
+    }
+
+    @Override
+    Object get(int row) {
+        int code = codes[row];
+        if (code >= 0) {
+            return dictionary.decode(code);
+        }
+        return code == BOXED ? boxed[row] : null;
+    }
+
+    @Override
+    int getCode(int row) {
+        return codes[row] >= 0 ? codes[row] : AddressDictionary.NO_CODE;
+    }
+
+    @Override
+    AddressDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    byte[] getBytes(int row) {
+        return codes[row] >= 0 ? dictionary.getBytes(codes[row]) : null;
+    }
+
+    @Override
+    void copy(int row, ColumnVector from, int fromRow) {
+        AddressVector source = (AddressVector) from;
+        if (source.dictionary == dictionary && source.codes[fromRow] != BOXED) {
+            codes[row] = source.codes[fromRow];
+        } else {
+            set(row, source.get(fromRow));
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.web3j.utils.Numeric;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.impetus.blkch.BlkchnException;
+import com.impetus.eth.query.EthColumns;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.rpc.BatchService.ResponseReader;
+
+/**
+ * Decodes a raw batch response of eth_getBlockByNumber calls straight into the columns of the block or the
+ * transaction table, as it is streamed in. Fields of the response which are not among the columns are skipped
+ * without being turned into values. Quantities are written as longs, hashes and addresses as packed bytes, straight
+ * from the characters of the parser, and the wide hex fields, logs bloom, extra data, input and raw, are kept as
+ * undecoded bytes until they are read. Values read back the same as the web3j getters give, quantities as BigInteger,
+ * and the gas and v of a transaction as decimal strings. Addresses are coded by an address dictionary, which the
+ * batches of one scan share so that they can be appended without decoding. A decoder holds no other state between
+ * reads, one instance can decode several responses at once.
+ */
+public class BlockColumnDecoder implements ResponseReader<ColumnBatch> {
+
+    private static final int TEXT = 0;
+
+    private static final int QUANTITY = 1;
+
+    private static final int QUANTITY_TEXT = 2;
+
+    private static final int INT_TEXT = 3;
+
+    private static final int TEXT_LIST = 4;
+
+    private static final int HASH = 5;
+
+    private static final int ADDRESS = 6;
+
+    private static final int HEX_TEXT = 7;
+
+    private static final String ID = "id";
+
+    private static final String RESULT = "result";
+
+    private static final String ERROR = "error";
+
+    private static final String TRANSACTIONS = "transactions";
+
+    private final List<String> columns;
+
+    private final boolean transactionRows;
+
+    private final Map<String, Integer> fieldColumns = new HashMap<>();
+
+    private final int[] kinds;
+
+    private final ColumnType[] types;
+
+    private final AddressDictionary dictionary;
+
+    /**
+     * Creates a decoder which codes the addresses of every response in a dictionary of its own.
+     */
+    public BlockColumnDecoder(String table, List<String> columns) {
+        this(table, columns, null);
+    }
+
+    /**
+     * @param table
+     *            block or transaction table, a transaction table row is decoded from every transaction object of a
+     *            block fetched with full transactions
+     * @param columns
+     *            columns to decode, in row order
+     * @param dictionary
+     *            dictionary coding the addresses of all responses, or null for a dictionary per response
+     */
+    public BlockColumnDecoder(String table, List<String> columns, AddressDictionary dictionary) {
+        this.columns = columns;
+        this.dictionary = dictionary;
+        this.transactionRows = EthTables.TRANSACTION.equals(table);
+        this.kinds = new int[columns.size()];
+        this.types = new ColumnType[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (transactionRows) {
+                bindTransactionColumn(column, i);
+            } else if (EthTables.BLOCK.equals(table)) {
+                bindBlockColumn(column, i);
+            } else {
+                throw new BlkchnException("Table " + table + " can't be decoded from blocks");
+            }
+        }
+    }
+
+    /**
+     * Tells whether the column can be decoded without binding a whole web3j object.
+     */
+    public static boolean isDecodable(String table, String column) {
+        return EthTables.TRANSACTION.equals(table) || (EthTables.BLOCK.equals(table)
+                && !EthColumns.TRANSACTIONS.equals(column));
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public ColumnBatch join(ColumnBatch first, ColumnBatch second) {
+        first.append(second);
+        return first;
+    }
+
+    @Override
+    public ColumnBatch read(JsonParser parser) throws IOException {
+        ColumnBatch batch = new ColumnBatch(columns, types, 16,
+                dictionary != null ? dictionary : new AddressDictionary(Integer.MAX_VALUE));
+        List<long[]> segments = new ArrayList<>();
+        boolean ordered = true;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long id = -1;
+            int firstRow = batch.getRowCount();
+            String error = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (ID.equals(field)) {
+                    id = parser.getValueAsLong(-1);
+                } else if (RESULT.equals(field) && token == JsonToken.START_OBJECT) {
+                    readBlock(parser, batch);
+                } else if (ERROR.equals(field) && token == JsonToken.START_OBJECT) {
+                    error = readErrorMessage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (error != null) {
+                throw new IOException("Error processing request: " + error);
+            }
+            if (!segments.isEmpty() && segments.get(segments.size() - 1)[0] > id) {
+                ordered = false;
+            }
+            segments.add(new long[] { id, firstRow, batch.getRowCount() });
+        }
+        if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Malformed batch response at " + parser.getCurrentLocation());
+        }
+        if (ordered) {
+            return batch;
+        }
+        // responses may come in any order, rows are put back in request order
+        segments.sort((first, second) -> Long.compare(first[0], second[0]));
+        int[] rows = new int[batch.getRowCount()];
+        int next = 0;
+        for (long[] segment : segments) {
+            for (long row = segment[1]; row < segment[2]; row++) {
+                rows[next++] = (int) row;
+            }
+        }
+        return batch.reorder(rows);
+    }
+
+    private void readBlock(JsonParser parser, ColumnBatch batch) throws IOException {
+        if (!transactionRows) {
+            readRow(parser, batch);
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (TRANSACTIONS.equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                        readRow(parser, batch);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads one object into a new row, the parser is on the start of the object and is left on its end.
+     */
+    private void readRow(JsonParser parser, ColumnBatch batch) throws IOException {
+        int row = batch.addRow();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer column = fieldColumns.get(parser.getCurrentName());
+            parser.nextToken();
+            if (column == null) {
+                parser.skipChildren();
+            } else {
+                writeValue(parser, batch, row, column);
+            }
+        }
+    }
+
+    private void writeValue(JsonParser parser, ColumnBatch batch, int row, int column) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        switch (kinds[column]) {
+            case QUANTITY:
+            case QUANTITY_TEXT:
+            case HASH:
+            case ADDRESS:
+            case HEX_TEXT:
+                if (token == JsonToken.VALUE_STRING) {
+                    batch.setHex(row, column, parser.getTextCharacters(), parser.getTextOffset(),
+                            parser.getTextLength());
+                } else if (kinds[column] == HEX_TEXT) {
+                    batch.set(row, column, parser.getText());
+                } else {
+                    batch.set(row, column, readQuantity(parser));
+                }
+                break;
+            case INT_TEXT:
+                // geth gives v as a hex string, parity as a number
+                batch.setLong(row, column, token == JsonToken.VALUE_STRING
+                        ? Numeric.toBigInt(parser.getText()).intValueExact() : parser.getIntValue());
+                break;
+            case TEXT_LIST:
+                List<String> values = new ArrayList<>();
+                if (token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        values.add(parser.getText());
+                    }
+                }
+                batch.set(row, column, values);
+                break;
+            default:
+                batch.set(row, column, parser.getText());
+        }
+    }
+
+    private static BigInteger readQuantity(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getBigIntegerValue();
+        }
+        return Numeric.decodeQuantity(parser.getText());
+    }
+
+    private static String readErrorMessage(JsonParser parser) throws IOException {
+        String message = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("message".equals(field)) {
+                message = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return message;
+    }
+
+    private void bindBlockColumn(String column, int index) {
+        switch (column) {
+            case EthColumns.BLOCKNUMBER:
+                bind("number", index, QUANTITY);
+                break;
+            case EthColumns.HASH:
+                bind("hash", index, HASH);
+                break;
+            case EthColumns.PARENTHASH:
+                bind("parentHash", index, HASH);
+                break;
+            case EthColumns.NONCE:
+                bind("nonce", index, QUANTITY);
+                break;
+            case EthColumns.SHA3UNCLES:
+                bind("sha3Uncles", index, HASH);
+                break;
+            case EthColumns.LOGSBLOOM:
+                bind("logsBloom", index, HEX_TEXT);
+                break;
+            case EthColumns.TRANSACTIONSROOT:
+                bind("transactionsRoot", index, HASH);
+                break;
+            case EthColumns.STATEROOT:
+                bind("stateRoot", index, HASH);
+                break;
+            case EthColumns.RECEIPTSROOT:
+                bind("receiptsRoot", index, HASH);
+                break;
+            case EthColumns.AUTHOR:
+                bind("author", index, ADDRESS);
+                break;
+            case EthColumns.MINER:
+                bind("miner", index, ADDRESS);
+                break;
+            case EthColumns.MIXHASH:
+                bind("mixHash", index, HASH);
+                break;
+            case EthColumns.TOTALDIFFICULTY:
+                bind("totalDifficulty", index, QUANTITY);
+                break;
+            case EthColumns.EXTRADATA:
+                bind("extraData", index, HEX_TEXT);
+                break;
+            case EthColumns.SIZE:
+                bind("size", index, QUANTITY);
+                break;
+            case EthColumns.GASLIMIT:
+                bind("gasLimit", index, QUANTITY);
+                break;
+            case EthColumns.GASUSED:
+                bind("gasUsed", index, QUANTITY);
+                break;
+            case EthColumns.TIMESTAMP:
+                bind("timestamp", index, QUANTITY);
+                break;
+            case EthColumns.UNCLES:
+                bind("uncles", index, TEXT_LIST);
+                break;
+            case EthColumns.SEALFIELDS:
+                bind("sealFields", index, TEXT_LIST);
+                break;
+            default:
+                throw new BlkchnException("Column " + column + " of table " + EthTables.BLOCK + " can't be decoded");
+        }
+    }
+
+    private void bindTransactionColumn(String column, int index) {
+        switch (column) {
+            case EthColumns.BLOCKHASH:
+                bind("blockHash", index, HASH);
+                break;
+            case EthColumns.BLOCKNUMBER:
+                bind("blockNumber", index, QUANTITY);
+                break;
+            case EthColumns.CREATES:
+                bind("creates", index, ADDRESS);
+                break;
+            case EthColumns.FROM:
+                bind("from", index, ADDRESS);
+                break;
+            case EthColumns.GAS:
+                bind("gas", index, QUANTITY_TEXT);
+                break;
+            case EthColumns.GASPRICE:
+                bind("gasPrice", index, QUANTITY);
+                break;
+            case EthColumns.HASH:
+                bind("hash", index, HASH);
+                break;
+            case EthColumns.INPUT:
+                bind("input", index, HEX_TEXT);
+                break;
+            case EthColumns.NONCE:
+                bind("nonce", index, QUANTITY);
+                break;
+            case EthColumns.PUBLICKEY:
+                bind("publicKey", index, TEXT);
+                break;
+            case EthColumns.R:
+                bind("r", index, HASH);
+                break;
+            case EthColumns.RAW:
+                bind("raw", index, HEX_TEXT);
+                break;
+            case EthColumns.S:
+                bind("s", index, HASH);
+                break;
+            case EthColumns.TO:
+                bind("to", index, ADDRESS);
+                break;
+            case EthColumns.TRANSACTIONINDEX:
+                bind("transactionIndex", index, QUANTITY);
+                break;
+            case EthColumns.V:
+                bind("v", index, INT_TEXT);
+                break;
+            case EthColumns.VALUE:
+                bind("value", index, QUANTITY);
+                break;
+            default:
+                throw new BlkchnException("Column " + column + " doesn't exist in table " + EthTables.TRANSACTION);
+        }
+    }
+
+    private void bind(String field, int index, int kind) {
+        fieldColumns.put(field, index);
+        kinds[index] = kind;
+        switch (kind) {
+            case QUANTITY:
+                types[index] = ColumnType.QUANTITY;
+                break;
+            case QUANTITY_TEXT:
+            case INT_TEXT:
+                types[index] = ColumnType.QUANTITY_TEXT;
+                break;
+            case HASH:
+                types[index] = ColumnType.HASH;
+                break;
+            case ADDRESS:
+                types[index] = ColumnType.ADDRESS;
+                break;
+            case HEX_TEXT:
+                types[index] = ColumnType.HEX_TEXT;
+                break;
+            default:
+                types[index] = ColumnType.OBJECT;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Column of fixed width hex values, such as hashes and addresses, packed into one byte array. A value which is not
+ * lower case hex of the exact width is kept as it came, so that it reads back unchanged.
+ */
+class BytesVector extends ColumnVector {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final byte NULL = 0;
+
+    private static final byte PACKED = 1;
+
+    private static final byte BOXED = 2;
+
+    private final int width;
+
+    private byte[] bytes;
+
+    private byte[] states;
+
+    private Object[] boxed;
+
+    BytesVector(int capacity, int width) {
+        this.width = width;
+        this.bytes = new byte[capacity * width];
+        this.states = new byte[capacity];
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > states.length) {
+            int length = grow(states.length, capacity);
+            bytes = Arrays.copyOf(bytes, length * width);
+            states = Arrays.copyOf(states, length);
+            if (boxed != null) {
+                boxed = Arrays.copyOf(boxed, length);
+            }
+        }
+    }
+
+    @Override
+    void set(int row, Object value) {
+        if (value == null) {
+            states[row] = NULL;
+        } else if (value instanceof String) {
+            String text = (String) value;
+            setHex(row, text.toCharArray(), 0, text.length());
+        } else {
+            box(row, value);
+        }
+    }
+
+    @Override
+    void setHex(int row, char[] chars, int offset, int length) {
+        if (length != 2 + 2 * width || chars[offset] != '0' || chars[offset + 1] != 'x') {
+            box(row, new String(chars, offset, length));
+            return;
+        }
+        int target = row * width;
+        for (int i = offset + 2; i < offset + length; i += 2) {
+            int high = lowerHexDigit(chars[i]);
+            int low = lowerHexDigit(chars[i + 1]);
+            if (high < 0 || low < 0) {
+                box(row, new String(chars, offset, length));
+                return;
+            }
+            bytes[target++] = (byte) ((high << 4) | low);
+        }
+        states[row] = PACKED;
+    }
+
+    private void box(int row, Object value) {
+        if (boxed == null) {
+            boxed = new Object[states.length];
+        }
+        boxed[row] = value;
+        states[row] = BOXED;
+    }
+
+    private static int lowerHexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    @Override
+    Object get(int row) {
+        switch (states[row]) {
+            case PACKED:
+                char[] chars = new char[2 + 2 * width];
+                chars[0] = '0';
+                chars[1] = 'x';
+                for (int i = 0, source = row * width; i < width; i++, source++) {
+                    chars[2 + 2 * i] = HEX_DIGITS[(bytes[source] >> 4) & 0xf];
+                    chars[3 + 2 * i] = HEX_DIGITS[bytes[source] & 0xf];
+                }
+                return new String(chars);
+            case BOXED:
+                return boxed[row];
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    byte[] getBytes(int row) {
+        return states[row] == PACKED ? Arrays.copyOfRange(bytes, row * width, (row + 1) * width) : null;
+    }
+
+    @Override
+    void copy(int row, ColumnVector from, int fromRow) {
+        BytesVector source = (BytesVector) from;
+        if (source.states[fromRow] == BOXED) {
+            box(row, source.boxed[fromRow]);
+        } else {
+            System.arraycopy(source.bytes, fromRow * width, bytes, row * width, width);
+            states[row] = source.states[fromRow];
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Rows of a query result held column by column. Quantities are held as primitive longs, hashes and addresses as
+ * packed bytes and other values as objects. Values are written in place by a decoder, and the rows are handed out
+ * as list views over the columns, so no row object is built until a row is read as a list.
+ * <p>
+ * Slices and projections share the columns of the batch they are taken from and can't be written to.
+ */
+public class ColumnBatch {
+
+    private final List<String> columns;
+
+    private final ColumnType[] types;
+
+    private final ColumnVector[] vectors;
+
+    private final int first;
+
+    private final boolean view;
+
+    private int rowCount;
+
+    private int capacity;
+
+    public ColumnBatch(List<String> columns, ColumnType[] types, int capacity) {
+        this(columns, types, capacity, new AddressDictionary(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Creates a batch whose address columns are coded by the given dictionary, batches sharing a dictionary are
+     * appended to each other without decoding their addresses.
+     */
+    public ColumnBatch(List<String> columns, ColumnType[] types, int capacity, AddressDictionary dictionary) {
+        this.columns = columns;
+        this.types = types;
+        this.capacity = Math.max(capacity, 1);
+        this.vectors = new ColumnVector[types.length];
+        for (int column = 0; column < types.length; column++) {
+            vectors[column] = types[column].newVector(this.capacity, dictionary);
+        }
+        this.first = 0;
+        this.view = false;
+    }
+
+    private ColumnBatch(List<String> columns, ColumnType[] types, ColumnVector[] vectors, int first, int rowCount) {
+        this.columns = columns;
+        this.types = types;
+        this.vectors = vectors;
+        this.first = first;
+        this.rowCount = rowCount;
+        this.capacity = rowCount;
+        this.view = true;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public ColumnType getType(int column) {
+        return types[column];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Adds a row with all its values null and returns its index.
+     */
+    public int addRow() {
+        if (view) {
+            throw new IllegalStateException("Rows can't be added to a view of a batch");
+        }
+        if (rowCount == capacity) {
+            capacity *= 2;
+            for (ColumnVector vector : vectors) {
+                vector.ensureCapacity(capacity);
+            }
+        }
+        return rowCount++;
+    }
+
+    public void set(int row, int column, Object value) {
+        vectors[column].set(first + row, value);
+    }
+
+    public void setLong(int row, int column, long value) {
+        vectors[column].setLong(first + row, value);
+    }
+
+    /**
+     * Writes a value given as the characters of a hex string. Quantity, hash and address columns take it without
+     * making a string of it.
+     */
+    public void setHex(int row, int column, char[] chars, int offset, int length) {
+        vectors[column].setHex(first + row, chars, offset, length);
+    }
+
+    public Object get(int row, int column) {
+        return vectors[column].get(checkRow(row));
+    }
+
+    /**
+     * Tells whether the value is held as a primitive long, which {@link #getLong(int, int)} reads without boxing.
+     */
+    public boolean hasLong(int row, int column) {
+        return vectors[column].hasLong(checkRow(row));
+    }
+
+    public long getLong(int row, int column) {
+        return vectors[column].getLong(checkRow(row));
+    }
+
+    /**
+     * Returns a copy of the packed bytes of a hash or address, or null when the value isn't held as bytes.
+     */
+    public byte[] getBytes(int row, int column) {
+        return vectors[column].getBytes(checkRow(row));
+    }
+
+    /**
+     * Returns the dictionary code of an address, or {@link AddressDictionary#NO_CODE} when the value isn't coded.
+     * Rows with the same code hold the same address.
+     */
+    public int getCode(int row, int column) {
+        return vectors[column].getCode(checkRow(row));
+    }
+
+    /**
+     * Returns the dictionary coding the addresses of a column, or null for a column of another type.
+     */
+    public AddressDictionary getDictionary(int column) {
+        return vectors[column].getDictionary();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return first + row;
+    }
+
+    /**
+     * Adds the rows of another batch over the same columns after the rows of this one.
+     */
+    public void append(ColumnBatch other) {
+        for (int row = 0; row < other.rowCount; row++) {
+            int target = addRow();
+            for (int column = 0; column < vectors.length; column++) {
+                vectors[column].copy(target, other.vectors[column], other.first + row);
+            }
+        }
+    }
+
+    /**
+     * Returns a batch with the given rows of this one, in the given order.
+     */
+    public ColumnBatch reorder(int[] rows) {
+        ColumnBatch reordered = new ColumnBatch(columns, types, rows.length, dictionary());
+        for (int row : rows) {
+            int target = reordered.addRow();
+            for (int column = 0; column < vectors.length; column++) {
+                reordered.vectors[column].copy(target, vectors[column], checkRow(row));
+            }
+        }
+        return reordered;
+    }
+
+    private AddressDictionary dictionary() {
+        for (ColumnVector vector : vectors) {
+            if (vector.getDictionary() != null) {
+                return vector.getDictionary();
+            }
+        }
+        return new AddressDictionary(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a view of the rows from the first index, inclusive, to the second, exclusive.
+     */
+    public ColumnBatch slice(int from, int to) {
+        if (from < 0 || to > rowCount || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " of " + rowCount);
+        }
+        return new ColumnBatch(columns, types, vectors, first + from, to - from);
+    }
+
+    /**
+     * Returns a view of the given columns, in the given order and under the given names.
+     */
+    public ColumnBatch project(int[] selected, List<String> names) {
+        ColumnType[] projectedTypes = new ColumnType[selected.length];
+        ColumnVector[] projectedVectors = new ColumnVector[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            projectedTypes[i] = types[selected[i]];
+            projectedVectors[i] = vectors[selected[i]];
+        }
+        return new ColumnBatch(names, projectedTypes, projectedVectors, first, rowCount);
+    }
+
+    /**
+     * Returns the rows as lists of values in column order. The lists are views over the batch.
+     */
+    public Rows asRows() {
+        return new Rows(this);
+    }
+
+    /**
+     * Rows of a batch, which readers aware of the layout can unwrap to read the columns directly.
+     */
+    public static class Rows extends AbstractList<List<Object>> {
+
+        private final ColumnBatch batch;
+
+        private Rows(ColumnBatch batch) {
+            this.batch = batch;
+        }
+
+        public ColumnBatch getBatch() {
+            return batch;
+        }
+
+        @Override
+        public List<Object> get(int row) {
+            batch.checkRow(row);
+            return new RowView(batch, row);
+        }
+
+        @Override
+        public int size() {
+            return batch.rowCount;
+        }
+
+        @Override
+        public List<List<Object>> subList(int from, int to) {
+            return new Rows(batch.slice(from, to));
+        }
+    }
+
+    private static class RowView extends AbstractList<Object> {
+
+        private final ColumnBatch batch;
+
+        private final int row;
+
+        RowView(ColumnBatch batch, int row) {
+            this.batch = batch;
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int column) {
+            return batch.get(row, column);
+        }
+
+        @Override
+        public int size() {
+            return batch.vectors.length;
+        }
+    }
+}
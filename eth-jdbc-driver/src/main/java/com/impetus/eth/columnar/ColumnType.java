@@ -0,0 +1,57 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+/**
+ * Layout of a result column in a {@link ColumnBatch}.
+ */
+public enum ColumnType {
+
+    /** Any value, held as an object. */
+    OBJECT,
+
+    /** Hex quantity, held as a long when it fits and read as a BigInteger. */
+    QUANTITY,
+
+    /** Hex quantity, held as a long when it fits and read as a decimal string. */
+    QUANTITY_TEXT,
+
+    /** 32 byte hex value such as a hash, packed into bytes and read as a hex string. */
+    HASH,
+
+    /** 20 byte hex address, held as a code of an address dictionary and read as a hex string. */
+    ADDRESS,
+
+    /** Hex string of any length, kept as undecoded ASCII bytes and made a string only when read. */
+    HEX_TEXT;
+
+    ColumnVector newVector(int capacity, AddressDictionary dictionary) {
+        switch (this) {
+            case QUANTITY:
+                return new LongVector(capacity, false);
+            case QUANTITY_TEXT:
+                return new LongVector(capacity, true);
+            case HASH:
+                return new BytesVector(capacity, 32);
+            case ADDRESS:
+                return new AddressVector(capacity, dictionary);
+            case HEX_TEXT:
+                return new HexTextVector(capacity);
+            default:
+                return new ObjectVector(capacity);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+/**
+ * Storage of one column of a {@link ColumnBatch}. Rows not written are null.
+ */
+abstract class ColumnVector {
+
+    abstract void ensureCapacity(int capacity);
+
+    abstract void set(int row, Object value);
+
+    /**
+     * Writes a value given as the characters of a hex string, without making a string of it when the vector can
+     * pack it.
+     */
+    void setHex(int row, char[] chars, int offset, int length) {
+        set(row, new String(chars, offset, length));
+    }
+
+    void setLong(int row, long value) {
+        set(row, value);
+    }
+
+    abstract Object get(int row);
+
+    /**
+     * Tells whether the value of the row is held as a primitive long.
+     */
+    boolean hasLong(int row) {
+        return false;
+    }
+
+    long getLong(int row) {
+        throw new IllegalStateException("Row " + row + " doesn't hold a long");
+    }
+
+    /**
+     * Returns the packed bytes of the row, or null when the value isn't held as bytes.
+     */
+    byte[] getBytes(int row) {
+        return null;
+    }
+
+    /**
+     * Returns the dictionary code of the row, or {@link AddressDictionary#NO_CODE} when the value isn't coded.
+     */
+    int getCode(int row) {
+        return AddressDictionary.NO_CODE;
+    }
+
+    AddressDictionary getDictionary() {
+        return null;
+    }
+
+    /**
+     * Copies a row of another vector of the same type into a row of this one.
+     */
+    abstract void copy(int row, ColumnVector from, int fromRow);
+
+    static int grow(int length, int capacity) {
+        return Math.max(capacity, length * 2);
+    }
+}
@@ -0,0 +1,163 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column of wide hex strings, such as logs blooms and call data, kept undecoded as ASCII bytes in one buffer. A
+ * string is only made when a value is read, values of rows which are dropped or never read cost their bytes alone.
+ */
+class HexTextVector extends ColumnVector {
+
+    private static final int NULL = -1;
+
+    private static final int BOXED = -2;
+
+    private byte[] buffer;
+
+    private int used;
+
+    private int[] offsets;
+
+    private int[] lengths;
+
+    private Object[] boxed;
+
+    HexTextVector(int capacity) {
+        this.buffer = new byte[capacity * 64];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        Arrays.fill(lengths, NULL);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > lengths.length) {
+            int length = grow(lengths.length, capacity);
+            offsets = Arrays.copyOf(offsets, length);
+            int previous = lengths.length;
+            lengths = Arrays.copyOf(lengths, length);
+            Arrays.fill(lengths, previous, length, NULL);
+            if (boxed != null) {
+                boxed = Arrays.copyOf(boxed, length);
+            }
+        }
+    }
+
+    @Override
+    void set(int row, Object value) {
+        if (value == null) {
+            lengths[row] = NULL;
+        } else if (value instanceof String) {
+            String text = (String) value;
+            setHex(row, text.toCharArray(), 0, text.length());
+        } else {
+            box(row, value);
+        }
+    }
+
+    @Override
+    void setHex(int row, char[] chars, int offset, int length) {
+        int start = reserve(length);
+        for (int i = 0; i < length; i++) {
+            char c = chars[offset + i];
+            if (c > 0x7f) {
+                used = start;
+                box(row, new String(chars, offset, length));
+                return;
+            }
+            buffer[start + i] = (byte) c;
+        }
+        offsets[row] = start;
+        lengths[row] = length;
+    }
+
+    private int reserve(int length) {
+        if (used + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(used + length, buffer.length * 2));
+        }
+        int start = used;
+        used += length;
+        return start;
+    }
+
+    private void box(int row, Object value) {
+        if (boxed == null) {
+            boxed = new Object[lengths.length];
+        }
+        boxed[row] = value;
+        lengths[row] = BOXED;
+    }
+
+    @Override
+    Object get(int row) {
+        switch (lengths[row]) {
+            case NULL:
+                return null;
+            case BOXED:
+                return boxed[row];
+            default:
+                return new String(buffer, offsets[row], lengths[row], StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Decodes the hex digits of the row into bytes, without making a string first.
+     */
+    @Override
+    byte[] getBytes(int row) {
+        int length = lengths[row];
+        if (length < 0) {
+            return null;
+        }
+        int offset = offsets[row];
+        if (length >= 2 && buffer[offset] == '0' && (buffer[offset + 1] == 'x' || buffer[offset + 1] == 'X')) {
+            offset += 2;
+            length -= 2;
+        }
+        if (length % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(buffer[offset + 2 * i], 16);
+            int low = Character.digit(buffer[offset + 2 * i + 1], 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    @Override
+    void copy(int row, ColumnVector from, int fromRow) {
+        HexTextVector source = (HexTextVector) from;
+        int length = source.lengths[fromRow];
+        if (length == BOXED) {
+            box(row, source.boxed[fromRow]);
+        } else if (length == NULL) {
+            lengths[row] = NULL;
+        } else {
+            int start = reserve(length);
+            System.arraycopy(source.buffer, source.offsets[fromRow], buffer, start, length);
+            offsets[row] = start;
+            lengths[row] = length;
+        }
+    }
+}
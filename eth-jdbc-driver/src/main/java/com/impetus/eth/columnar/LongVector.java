@@ -0,0 +1,142 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.web3j.utils.Numeric;
+
+/**
+ * Column of quantities held as primitive longs. A quantity which doesn't fit in 63 bits is kept as a BigInteger
+ * aside, quantities are read as BigInteger or, for a text column, as decimal strings.
+ */
+class LongVector extends ColumnVector {
+
+    private static final byte NULL = 0;
+
+    private static final byte LONG = 1;
+
+    private static final byte BOXED = 2;
+
+    private final boolean text;
+
+    private long[] values;
+
+    private byte[] states;
+
+    private Object[] boxed;
+
+    LongVector(int capacity, boolean text) {
+        this.text = text;
+        this.values = new long[capacity];
+        this.states = new byte[capacity];
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int length = grow(values.length, capacity);
+            values = Arrays.copyOf(values, length);
+            states = Arrays.copyOf(states, length);
+            if (boxed != null) {
+                boxed = Arrays.copyOf(boxed, length);
+            }
+        }
+    }
+
+    @Override
+    void set(int row, Object value) {
+        if (value == null) {
+            states[row] = NULL;
+        } else if (value instanceof Long || value instanceof Integer) {
+            setLong(row, ((Number) value).longValue());
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            setLong(row, ((BigInteger) value).longValue());
+        } else {
+            if (boxed == null) {
+                boxed = new Object[values.length];
+            }
+            boxed[row] = value;
+            states[row] = BOXED;
+        }
+    }
+
+    @Override
+    void setHex(int row, char[] chars, int offset, int length) {
+        // quantities are 0x followed by up to 15 digits for all but the largest values
+        if (length < 3 || length > 17 || chars[offset] != '0' || chars[offset + 1] != 'x') {
+            set(row, Numeric.decodeQuantity(new String(chars, offset, length)));
+            return;
+        }
+        long value = 0;
+        for (int i = offset + 2; i < offset + length; i++) {
+            int digit = Character.digit(chars[i], 16);
+            if (digit < 0) {
+                set(row, Numeric.decodeQuantity(new String(chars, offset, length)));
+                return;
+            }
+            value = (value << 4) | digit;
+        }
+        if (value < 0) {
+            set(row, Numeric.decodeQuantity(new String(chars, offset, length)));
+        } else {
+            setLong(row, value);
+        }
+    }
+
+    @Override
+    void setLong(int row, long value) {
+        values[row] = value;
+        states[row] = LONG;
+    }
+
+    @Override
+    Object get(int row) {
+        switch (states[row]) {
+            case LONG:
+                return text ? Long.toString(values[row]) : BigInteger.valueOf(values[row]);
+            case BOXED:
+                return text ? boxed[row].toString() : boxed[row];
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    boolean hasLong(int row) {
+        return states[row] == LONG;
+    }
+
+    @Override
+    long getLong(int row) {
+        if (states[row] != LONG) {
+            return super.getLong(row);
+        }
+        return values[row];
+    }
+
+    @Override
+    void copy(int row, ColumnVector from, int fromRow) {
+        LongVector source = (LongVector) from;
+        if (source.states[fromRow] == BOXED) {
+            set(row, source.boxed[fromRow]);
+        } else {
+            values[row] = source.values[fromRow];
+            states[row] = source.states[fromRow];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Column of plain objects.
+ */
+class ObjectVector extends ColumnVector {
+
+    private Object[] values;
+
+    ObjectVector(int capacity) {
+        values = new Object[capacity];
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    void set(int row, Object value) {
+        values[row] = value;
+    }
+
+    @Override
+    Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    void copy(int row, ColumnVector from, int fromRow) {
+        values[row] = ((ObjectVector) from).values[fromRow];
+    }
+}
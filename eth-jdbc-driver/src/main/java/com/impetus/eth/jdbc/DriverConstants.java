@@ -35,6 +35,12 @@ public class DriverConstants {
     
     public static final String HTTPPSREFIX = "https://";
     
+    public static final String WSPREFIX = "ws://";
+
+    public static final String WSSPREFIX = "wss://";
+
+    public static final String WEBSOCKET = "WEBSOCKET";
+
     public static final String INFURAURL = "INFURAURL";
 
     public static final String COLON = ":";
@@ -49,4 +55,100 @@ public class DriverConstants {
     
     public static final String KEYSTORE_PASSWORD = "KEYSTORE_PASSWORD";
 
+    public static final String BATCH_SIZE = "BATCH_SIZE";
+
+    public static final int DEFAULT_BATCH_SIZE = 1;
+
+    public static final String FETCH_PARALLELISM = "FETCH_PARALLELISM";
+
+    public static final int DEFAULT_FETCH_PARALLELISM = 1;
+
+    public static final String ENDPOINTS = "ENDPOINTS";
+
+    public static final String ENDPOINT_SEPARATOR = ",";
+
+    public static final String ENDPOINT_HEALTH_CHECK_MILLIS = "ENDPOINT_HEALTH_CHECK_MILLIS";
+
+    public static final int DEFAULT_ENDPOINT_HEALTH_CHECK_MILLIS = 10000;
+
+    public static final String ENDPOINT_EJECTION_MILLIS = "ENDPOINT_EJECTION_MILLIS";
+
+    public static final int DEFAULT_ENDPOINT_EJECTION_MILLIS = 30000;
+
+    public static final String RPC_MAX_CONCURRENCY = "RPC_MAX_CONCURRENCY";
+
+    public static final String RPC_MAX_RETRIES = "RPC_MAX_RETRIES";
+
+    public static final int DEFAULT_RPC_MAX_RETRIES = 3;
+
+    public static final String RPC_RETRY_BASE_DELAY_MILLIS = "RPC_RETRY_BASE_DELAY_MILLIS";
+
+    public static final int DEFAULT_RPC_RETRY_BASE_DELAY_MILLIS = 100;
+
+    public static final String RPC_RETRY_MAX_DELAY_MILLIS = "RPC_RETRY_MAX_DELAY_MILLIS";
+
+    public static final int DEFAULT_RPC_RETRY_MAX_DELAY_MILLIS = 5000;
+
+    public static final String CIRCUIT_FAILURE_THRESHOLD = "CIRCUIT_FAILURE_THRESHOLD";
+
+    public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 5;
+
+    public static final String CIRCUIT_OPEN_MILLIS = "CIRCUIT_OPEN_MILLIS";
+
+    public static final int DEFAULT_CIRCUIT_OPEN_MILLIS = 10000;
+
+    public static final String HEDGE_PERCENTILE = "HEDGE_PERCENTILE";
+
+    public static final String HEDGE_MIN_DELAY_MILLIS = "HEDGE_MIN_DELAY_MILLIS";
+
+    public static final int DEFAULT_HEDGE_MIN_DELAY_MILLIS = 20;
+
+    public static final String HTTP_MAX_CONNECTIONS = "HTTP_MAX_CONNECTIONS";
+
+    public static final String HTTP_CONNECT_TIMEOUT_MILLIS = "HTTP_CONNECT_TIMEOUT_MILLIS";
+
+    public static final int DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS = 10000;
+
+    public static final String HTTP_READ_TIMEOUT_MILLIS = "HTTP_READ_TIMEOUT_MILLIS";
+
+    public static final int DEFAULT_HTTP_READ_TIMEOUT_MILLIS = 60000;
+
+    public static final String HTTP_KEEP_ALIVE_MILLIS = "HTTP_KEEP_ALIVE_MILLIS";
+
+    public static final int DEFAULT_HTTP_KEEP_ALIVE_MILLIS = 30000;
+
+    public static final String HTTP_COMPRESSION = "HTTP_COMPRESSION";
+
+    public static final String BLOCK_CACHE_SIZE = "BLOCK_CACHE_SIZE";
+
+    public static final int DEFAULT_BLOCK_CACHE_SIZE = 0;
+
+    public static final String TRANSACTION_CACHE_SIZE = "TRANSACTION_CACHE_SIZE";
+
+    public static final int DEFAULT_TRANSACTION_CACHE_SIZE = 0;
+
+    public static final String TRANSACTION_INDEX_SIZE = "TRANSACTION_INDEX_SIZE";
+
+    public static final int DEFAULT_TRANSACTION_INDEX_SIZE = 0;
+
+    public static final String SHARED_BLOCK_CACHE = "SHARED_BLOCK_CACHE";
+
+    public static final String BLOCK_STORE_DIR = "BLOCK_STORE_DIR";
+
+    public static final String CONFIRMATION_DEPTH = "CONFIRMATION_DEPTH";
+
+    public static final int DEFAULT_CONFIRMATION_DEPTH = 12;
+
+    public static final String HEAD_MAX_STALENESS_MILLIS = "HEAD_MAX_STALENESS_MILLIS";
+
+    public static final int DEFAULT_HEAD_MAX_STALENESS_MILLIS = 1000;
+
+    public static final String HEAD_BACKGROUND_REFRESH = "HEAD_BACKGROUND_REFRESH";
+
+    public static final String COLUMNAR_DECODE = "COLUMNAR_DECODE";
+
+    public static final String ADDRESS_DICTIONARY_SIZE = "ADDRESS_DICTIONARY_SIZE";
+
+    public static final int DEFAULT_ADDRESS_DICTIONARY_SIZE = 65536;
+
 }
@@ -0,0 +1,127 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.parser.EthQueryExecutor;
+
+/**
+ * Forward only result set which holds one chunk of rows at a time and asks for the next chunk when the cursor runs
+ * out of the current one.
+ */
+public abstract class EthChunkedResultSet extends EthResultSet {
+
+    private int chunkCursor;
+
+    private boolean exhausted;
+
+    private List<List<Object>> pendingChunk;
+
+    protected EthChunkedResultSet(EthQueryExecutor executor, int resultSetType, int rSetConcurrency,
+            String tableName) {
+        super(buildColumnNamesMap(executor.getSelectColumns()), executor.getColumnAliasMapping(), resultSetType,
+                rSetConcurrency, tableName);
+    }
+
+    private static Map<String, Integer> buildColumnNamesMap(List<String> columns) {
+        Map<String, Integer> columnNamesMap = new LinkedHashMap<>();
+        for (String column : columns) {
+            columnNamesMap.put(column, columnNamesMap.size());
+        }
+        return columnNamesMap;
+    }
+
+    /**
+     * Returns the next non empty chunk of rows, or null when there are no more rows.
+     */
+    protected abstract List<List<Object>> fetchChunk() throws SQLException;
+
+    /**
+     * Returns the first rows of a chunk. Rows held in columns are cut as a view, others are copied so that the rest
+     * of the chunk can be dropped.
+     */
+    protected static List<List<Object>> firstRows(List<List<Object>> rows, int count) {
+        return rows instanceof ColumnBatch.Rows ? rows.subList(0, count) : new ArrayList<>(rows.subList(0, count));
+    }
+
+    /**
+     * Moves to the chunk after the current one, taking the chunk fetched ahead by {@link #isLast()} when there is
+     * one. The rows of the current chunk are dropped before the next one is fetched.
+     */
+    private boolean nextChunk() throws SQLException {
+        if (pendingChunk == null) {
+            setRowData(new ArrayList<>());
+            chunkCursor = 0;
+        }
+        List<List<Object>> chunk = fetchAhead();
+        if (chunk == null) {
+            return false;
+        }
+        pendingChunk = null;
+        setRowData(chunk);
+        chunkCursor = 0;
+        totalRowCount += chunk.size();
+        return true;
+    }
+
+    /**
+     * Returns the chunk after the current one without moving to it, or null when there are no more rows. The
+     * cursor keeps reading the current chunk until {@link #next()} moves past it.
+     */
+    private List<List<Object>> fetchAhead() throws SQLException {
+        if (pendingChunk == null && !exhausted) {
+            pendingChunk = fetchChunk();
+            exhausted = pendingChunk == null;
+        }
+        return pendingChunk;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkClosed();
+        if (currentRowCursor == AFTER_LAST_ROW) {
+            return false;
+        }
+        if (chunkCursor >= rowData.size() && !nextChunk()) {
+            currentRowCursor = AFTER_LAST_ROW;
+            return false;
+        }
+        moveToRow(chunkCursor++);
+        currentRowCursor++;
+        return true;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkClosed();
+        if (currentRowCursor <= 0 || chunkCursor < rowData.size()) {
+            return false;
+        }
+        return fetchAhead() == null;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        pendingChunk = null;
+        super.close();
+    }
+}
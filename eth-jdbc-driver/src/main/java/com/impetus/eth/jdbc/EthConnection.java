@@ -15,7 +15,9 @@
  ******************************************************************************/
 package com.impetus.eth.jdbc;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.nio.file.Paths;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.CallableStatement;
@@ -31,20 +33,42 @@ import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import com.impetus.blkch.BlkchnException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.web3j.protocol.ObjectMapperFactory;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
-import org.web3j.protocol.ipc.UnixIpcService;
-import org.web3j.protocol.ipc.WindowsIpcService;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.ipc.WindowsNamedPipe;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.impetus.blkch.BlkchnException;
 import com.impetus.blkch.jdbc.BlkchnConnection;
+import com.impetus.eth.cache.BlockCache;
+import com.impetus.eth.columnar.AddressDictionary;
+import com.impetus.eth.cache.HeadTracker;
+import com.impetus.eth.cache.TransactionIndex;
+import com.impetus.eth.rpc.AdaptiveLimiter;
+import com.impetus.eth.rpc.BatchService;
+import com.impetus.eth.rpc.CircuitBreaker;
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.EthIpcService;
+import com.impetus.eth.rpc.HedgedService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.eth.rpc.LoadBalancedService;
+import com.impetus.eth.rpc.MultiplexedService;
+import com.impetus.eth.rpc.PipelinedIpcService;
+import com.impetus.eth.rpc.RetryingService;
+import com.impetus.eth.rpc.Web3jRegistry;
+import com.impetus.eth.rpc.WebSocketService;
+import com.impetus.eth.store.BlockStore;
 
 /**
  * The Class EthConnection.
@@ -62,6 +86,30 @@ public class EthConnection implements BlkchnConnection {
 
     private Web3j web3jClient;
 
+    private Web3jService web3jService;
+
+    private Web3jRegistry.Lease web3jLease;
+
+    private int batchSize;
+
+    private int confirmationDepth;
+
+    private boolean columnarDecode;
+
+    private ForkJoinPool fetchPool;
+
+    private BlockCache blockCache;
+
+    private BlockStore blockStore;
+
+    private HeadTracker headTracker;
+
+    private MultiplexedService.Subscription headSubscription;
+
+    private TransactionIndex transactionIndex;
+
+    private AddressDictionary addressDictionary;
+
     private ArrayList statementList = new ArrayList();
 
     /** Has this connection been closed?*/
@@ -75,6 +123,72 @@ public class EthConnection implements BlkchnConnection {
         this.web3jClient = web3jClient;
     }
 
+    public Web3jService getWeb3jService() {
+        return web3jService;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of blocks below the chain head after which a block is no longer expected to be reorganised.
+     */
+    public int getConfirmationDepth() {
+        return confirmationDepth;
+    }
+
+    /**
+     * Tells whether block range scans may decode the node's responses straight into result columns.
+     */
+    public boolean isColumnarDecode() {
+        return columnarDecode;
+    }
+
+    /**
+     * Returns the pool used to fetch blocks in parallel, or null when blocks are fetched one after another.
+     */
+    public ForkJoinPool getFetchPool() {
+        return fetchPool;
+    }
+
+    /**
+     * Returns the cache of blocks and transactions used by the statements of this connection, or null when caching
+     * is disabled.
+     */
+    public BlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    /**
+     * Returns the dictionary giving one string per address to the blocks and transactions kept by this connection,
+     * or null when nothing is kept or the dictionary is disabled.
+     */
+    public AddressDictionary getAddressDictionary() {
+        return addressDictionary;
+    }
+
+    /**
+     * Returns the local store of finalized blocks, or null when no store directory is configured.
+     */
+    public BlockStore getBlockStore() {
+        return blockStore;
+    }
+
+    /**
+     * Returns the tracker of the chain head shared by the statements of this connection.
+     */
+    public HeadTracker getHeadTracker() {
+        return headTracker;
+    }
+
+    /**
+     * Returns the index of the transactions of recently fetched blocks, or null when it is disabled.
+     */
+    public TransactionIndex getTransactionIndex() {
+        return transactionIndex;
+    }
+
     public void addNewStatement(EthStatement statement) {
         synchronized (statementList) {
             for (int i = 0; i < statementList.size(); i++) {
@@ -92,29 +206,210 @@ public class EthConnection implements BlkchnConnection {
         super();
         this.url = url;
         this.props = props;
+        int parallelism = getIntProperty(DriverConstants.FETCH_PARALLELISM,
+                DriverConstants.DEFAULT_FETCH_PARALLELISM);
+        String endpoint;
+        String clientKey;
+        Web3jRegistry.ServiceFactory serviceFactory;
+        // web3j's named pipe transport is the one which takes a single call at a time
+        boolean windowsIpc = props.getProperty(DriverConstants.IPC) != null
+                && props.getProperty(DriverConstants.IPC_OS) != null;
+        int concurrencyCeiling = getIntProperty(DriverConstants.RPC_MAX_CONCURRENCY, 0);
+        int failureThreshold = getIntProperty(DriverConstants.CIRCUIT_FAILURE_THRESHOLD,
+                DriverConstants.DEFAULT_CIRCUIT_FAILURE_THRESHOLD);
+        long circuitOpenMillis = getIntProperty(DriverConstants.CIRCUIT_OPEN_MILLIS,
+                DriverConstants.DEFAULT_CIRCUIT_OPEN_MILLIS);
+        String guardKey = concurrencyCeiling + " " + failureThreshold + " " + circuitOpenMillis;
         if (props.getProperty(DriverConstants.IPC) != null) {
             String path = props.getProperty(DriverConstants.IPC);
+            endpoint = path;
             if (props.getProperty(DriverConstants.IPC_OS) != null) {
                 LOGGER.info("Connecting to ethereum with ipc file on windows location : " + path);
-                web3jClient = Web3j.build(new WindowsIpcService(path));
+                clientKey = "windows-ipc " + path;
+                serviceFactory = () -> new EthIpcService(new WindowsNamedPipe(path));
             } else {
                 LOGGER.info("Connecting to ethereum with ipc file on unix location : " + path);
-                web3jClient = Web3j.build(new UnixIpcService(path));
+                int readTimeout = getIntProperty(DriverConstants.HTTP_READ_TIMEOUT_MILLIS,
+                        DriverConstants.DEFAULT_HTTP_READ_TIMEOUT_MILLIS);
+                clientKey = "unix-ipc " + path + " " + readTimeout;
+                serviceFactory = () -> new PipelinedIpcService(path, readTimeout);
             }
-        } else if (props.containsKey(DriverConstants.INFURAURL)) {
-            String httpsUrl = DriverConstants.HTTPPSREFIX + props.getProperty(DriverConstants.INFURAURL);
-            web3jClient = Web3j.build(new HttpService(httpsUrl));
-
+        } else if (props.getProperty(DriverConstants.WEBSOCKET) != null) {
+            endpoint = props.getProperty(DriverConstants.WEBSOCKET);
+            LOGGER.info("Connecting to ethereum with websocket : " + endpoint);
+            int connectTimeout = getIntProperty(DriverConstants.HTTP_CONNECT_TIMEOUT_MILLIS,
+                    DriverConstants.DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS);
+            int readTimeout = getIntProperty(DriverConstants.HTTP_READ_TIMEOUT_MILLIS,
+                    DriverConstants.DEFAULT_HTTP_READ_TIMEOUT_MILLIS);
+            clientKey = "websocket " + endpoint + " " + connectTimeout + " " + readTimeout;
+            serviceFactory = () -> new WebSocketService(endpoint, connectTimeout, readTimeout);
+        } else if (props.getProperty(DriverConstants.ENDPOINTS) != null) {
+            endpoint = props.getProperty(DriverConstants.ENDPOINTS);
+            LOGGER.info("Connecting to ethereum with rpcurls : " + endpoint);
+            HttpTransportConfig transportConfig = getHttpTransportConfig(parallelism);
+            long healthCheckMillis = getIntProperty(DriverConstants.ENDPOINT_HEALTH_CHECK_MILLIS,
+                    DriverConstants.DEFAULT_ENDPOINT_HEALTH_CHECK_MILLIS);
+            long ejectionMillis = getIntProperty(DriverConstants.ENDPOINT_EJECTION_MILLIS,
+                    DriverConstants.DEFAULT_ENDPOINT_EJECTION_MILLIS);
+            clientKey = "balanced-http " + endpoint + " " + transportConfig + " " + healthCheckMillis + " "
+                    + ejectionMillis + " " + guardKey;
+            serviceFactory = () -> {
+                List<EthHttpService> services = new ArrayList<>();
+                for (String address : endpoint.split(DriverConstants.ENDPOINT_SEPARATOR)) {
+                    services.add(newHttpService(address, transportConfig, concurrencyCeiling, failureThreshold,
+                            circuitOpenMillis));
+                }
+                return new LoadBalancedService(services, healthCheckMillis, ejectionMillis);
+            };
         } else {
-            String httpUrl = DriverConstants.HTTPPREFIX + props.getProperty(DriverConstants.HOSTNAME)
-                    + DriverConstants.COLON + props.getProperty(DriverConstants.PORTNUMBER);
-            LOGGER.info("Connecting to ethereum with rpcurl : " + httpUrl);
-            web3jClient = Web3j.build(new HttpService(httpUrl));
+            if (props.containsKey(DriverConstants.INFURAURL)) {
+                endpoint = DriverConstants.HTTPPSREFIX + props.getProperty(DriverConstants.INFURAURL);
+            } else {
+                endpoint = DriverConstants.HTTPPREFIX + props.getProperty(DriverConstants.HOSTNAME)
+                        + DriverConstants.COLON + props.getProperty(DriverConstants.PORTNUMBER);
+                LOGGER.info("Connecting to ethereum with rpcurl : " + endpoint);
+            }
+            HttpTransportConfig transportConfig = getHttpTransportConfig(parallelism);
+            clientKey = "http " + endpoint + " " + transportConfig + " " + guardKey;
+            serviceFactory = () -> newHttpService(endpoint, transportConfig, concurrencyCeiling, failureThreshold,
+                    circuitOpenMillis);
+        }
+        int hedgePercentile = getIntProperty(DriverConstants.HEDGE_PERCENTILE, 0);
+        if (hedgePercentile > 0 && !windowsIpc) {
+            if (hedgePercentile >= 100) {
+                throw new SQLException(DriverConstants.HEDGE_PERCENTILE + " should be below 100");
+            }
+            long minDelayMillis = getIntProperty(DriverConstants.HEDGE_MIN_DELAY_MILLIS,
+                    DriverConstants.DEFAULT_HEDGE_MIN_DELAY_MILLIS);
+            Web3jRegistry.ServiceFactory unhedged = serviceFactory;
+            clientKey = "hedged p" + hedgePercentile + " " + minDelayMillis + " " + clientKey;
+            serviceFactory = () -> new HedgedService((BatchService) unhedged.create(), hedgePercentile,
+                    minDelayMillis);
+        }
+        int maxRetries = getIntProperty(DriverConstants.RPC_MAX_RETRIES, DriverConstants.DEFAULT_RPC_MAX_RETRIES);
+        if (maxRetries > 0 && !windowsIpc) {
+            long baseDelayMillis = getIntProperty(DriverConstants.RPC_RETRY_BASE_DELAY_MILLIS,
+                    DriverConstants.DEFAULT_RPC_RETRY_BASE_DELAY_MILLIS);
+            long maxDelayMillis = getIntProperty(DriverConstants.RPC_RETRY_MAX_DELAY_MILLIS,
+                    DriverConstants.DEFAULT_RPC_RETRY_MAX_DELAY_MILLIS);
+            Web3jRegistry.ServiceFactory unretried = serviceFactory;
+            clientKey = "retried " + maxRetries + " " + baseDelayMillis + " " + maxDelayMillis + " " + clientKey;
+            serviceFactory = () -> new RetryingService((BatchService) unretried.create(), maxRetries,
+                    baseDelayMillis, maxDelayMillis);
+        }
+        try {
+            web3jLease = Web3jRegistry.acquire(clientKey, serviceFactory);
+        } catch (IOException | RuntimeException e) {
+            throw new SQLException("Couldn't connect with ethereum at " + endpoint, e);
+        }
+        web3jService = web3jLease.getService();
+        web3jClient = web3jLease.getWeb3j();
+        try {
+            initialize(parallelism, endpoint);
+        } catch (SQLException | RuntimeException e) {
+            realClose();
+            throw e;
+        }
+    }
+
+    private static EthHttpService newHttpService(String url, HttpTransportConfig transportConfig,
+            int concurrencyCeiling, int failureThreshold, long circuitOpenMillis) {
+        AdaptiveLimiter limiter = concurrencyCeiling > 0 ? new AdaptiveLimiter(concurrencyCeiling) : null;
+        CircuitBreaker circuitBreaker = failureThreshold > 0
+                ? new CircuitBreaker(url, failureThreshold, circuitOpenMillis) : null;
+        return new EthHttpService(url, transportConfig, limiter, circuitBreaker);
+    }
+
+    private void initialize(int parallelism, String endpoint) throws SQLException {
+        if (parallelism > 1) {
+            if (web3jService instanceof BatchService) {
+                fetchPool = new ForkJoinPool(parallelism);
+            } else {
+                LOGGER.warn("Parallel block fetch is not supported over windows ipc, blocks will be fetched sequentially");
+            }
+        }
+        batchSize = getIntProperty(DriverConstants.BATCH_SIZE, DriverConstants.DEFAULT_BATCH_SIZE);
+        String columnar = props.getProperty(DriverConstants.COLUMNAR_DECODE);
+        columnarDecode = columnar == null || Boolean.parseBoolean(columnar);
+        confirmationDepth = getIntProperty(DriverConstants.CONFIRMATION_DEPTH,
+                DriverConstants.DEFAULT_CONFIRMATION_DEPTH);
+        if (confirmationDepth < 0) {
+            throw new SQLException("Invalid value " + confirmationDepth + " for connection property "
+                    + DriverConstants.CONFIRMATION_DEPTH);
+        }
+        int blockCacheSize = getIntProperty(DriverConstants.BLOCK_CACHE_SIZE,
+                DriverConstants.DEFAULT_BLOCK_CACHE_SIZE);
+        if (blockCacheSize > 0) {
+            int transactionCacheSize = getIntProperty(DriverConstants.TRANSACTION_CACHE_SIZE,
+                    DriverConstants.DEFAULT_TRANSACTION_CACHE_SIZE);
+            if (Boolean.parseBoolean(props.getProperty(DriverConstants.SHARED_BLOCK_CACHE))) {
+                blockCache = BlockCache.getShared(endpoint, blockCacheSize, transactionCacheSize,
+                        confirmationDepth);
+            } else {
+                blockCache = new BlockCache(blockCacheSize, transactionCacheSize, confirmationDepth);
+            }
+        }
+        int transactionIndexSize = getIntProperty(DriverConstants.TRANSACTION_INDEX_SIZE,
+                DriverConstants.DEFAULT_TRANSACTION_INDEX_SIZE);
+        if (transactionIndexSize > 0) {
+            transactionIndex = new TransactionIndex(transactionIndexSize);
+        }
+        if (props.getProperty(DriverConstants.BLOCK_STORE_DIR) != null) {
+            try {
+                blockStore = BlockStore.open(Paths.get(props.getProperty(DriverConstants.BLOCK_STORE_DIR)));
+            } catch (IOException e) {
+                throw new SQLException("Error opening block store " + props.getProperty(DriverConstants.BLOCK_STORE_DIR),
+                        e);
+            }
+        }
+        int headMaxStaleness = getIntProperty(DriverConstants.HEAD_MAX_STALENESS_MILLIS,
+                DriverConstants.DEFAULT_HEAD_MAX_STALENESS_MILLIS);
+        if (headMaxStaleness < 0) {
+            throw new SQLException("Invalid value " + headMaxStaleness + " for connection property "
+                    + DriverConstants.HEAD_MAX_STALENESS_MILLIS);
+        }
+        int addressDictionarySize = getIntProperty(DriverConstants.ADDRESS_DICTIONARY_SIZE,
+                DriverConstants.DEFAULT_ADDRESS_DICTIONARY_SIZE);
+        if (addressDictionarySize > 0 && (blockCache != null || transactionIndex != null || blockStore != null)) {
+            addressDictionary = new AddressDictionary(addressDictionarySize);
         }
         verifyConnection();
+        headTracker = new HeadTracker(web3jClient, blockCache, headMaxStaleness);
+        if (Boolean.parseBoolean(props.getProperty(DriverConstants.HEAD_BACKGROUND_REFRESH))) {
+            headTracker.startBackgroundRefresh();
+        }
+        MultiplexedService multiplexedService = getMultiplexedService();
+        if (multiplexedService != null) {
+            HeadTracker tracker = headTracker;
+            ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+            try {
+                headSubscription = multiplexedService.subscribe(header -> {
+                    try {
+                        tracker.onNewHead(objectMapper.treeToValue(header, Block.class));
+                    } catch (IOException e) {
+                        LOGGER.warn("Unreadable head pushed by the node: " + e.getMessage());
+                    }
+                }, "newHeads");
+            } catch (IOException e) {
+                LOGGER.warn("Node doesn't push new heads, the chain head will be polled: " + e.getMessage());
+            }
+        }
         LOGGER.info("Connected to ethereum ");
     }
 
+    private MultiplexedService getMultiplexedService() {
+        Web3jService service = web3jService;
+        while (true) {
+            if (service instanceof RetryingService) {
+                service = ((RetryingService) service).getDelegate();
+            } else if (service instanceof HedgedService) {
+                service = ((HedgedService) service).getDelegate();
+            } else {
+                return service instanceof MultiplexedService ? (MultiplexedService) service : null;
+            }
+        }
+    }
+
     public String getUrl() {
         return url;
     }
@@ -166,6 +461,37 @@ public class EthConnection implements BlkchnConnection {
             this.url = null;
             this.props = null;
             this.web3jClient = null;
+            this.web3jService = null;
+            if (this.headSubscription != null) {
+                try {
+                    this.headSubscription.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Error cancelling head subscription: " + e.getMessage());
+                }
+                this.headSubscription = null;
+            }
+            if (this.web3jLease != null) {
+                this.web3jLease.release();
+                this.web3jLease = null;
+            }
+            if (this.blockCache != null) {
+                this.blockCache.release();
+                this.blockCache = null;
+            }
+            this.transactionIndex = null;
+            this.addressDictionary = null;
+            if (this.headTracker != null) {
+                this.headTracker.close();
+                this.headTracker = null;
+            }
+            if (this.blockStore != null) {
+                this.blockStore.release();
+                this.blockStore = null;
+            }
+            if (this.fetchPool != null) {
+                this.fetchPool.shutdownNow();
+                this.fetchPool = null;
+            }
             this.isClosed = true;
             closeAllOpenStatements();
             this.statementList = new ArrayList();
@@ -438,6 +764,29 @@ public class EthConnection implements BlkchnConnection {
         throw new UnsupportedOperationException();
     }
 
+    private HttpTransportConfig getHttpTransportConfig(int parallelism) throws SQLException {
+        String compression = props.getProperty(DriverConstants.HTTP_COMPRESSION);
+        return new HttpTransportConfig(getIntProperty(DriverConstants.HTTP_MAX_CONNECTIONS, Math.max(parallelism, 2)),
+                getIntProperty(DriverConstants.HTTP_CONNECT_TIMEOUT_MILLIS,
+                        DriverConstants.DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS),
+                getIntProperty(DriverConstants.HTTP_READ_TIMEOUT_MILLIS,
+                        DriverConstants.DEFAULT_HTTP_READ_TIMEOUT_MILLIS),
+                getIntProperty(DriverConstants.HTTP_KEEP_ALIVE_MILLIS, DriverConstants.DEFAULT_HTTP_KEEP_ALIVE_MILLIS),
+                compression == null || Boolean.parseBoolean(compression));
+    }
+
+    private int getIntProperty(String key, int defaultValue) throws SQLException {
+        String value = props.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid value " + value + " for connection property " + key);
+        }
+    }
+
     protected void verifyConnection() throws SQLException {
         LOGGER.info("verfying the connection. ");
         try {
@@ -112,7 +112,31 @@ public class EthDriver implements BlkchnDriver {
         if (!"ethereum".equalsIgnoreCase(token.toString())) {
             return null;
         }
-        if (url.contains(".ipc")) {
+        String remainder = url.substring(23);
+        if (remainder.startsWith(DriverConstants.WSPREFIX) || remainder.startsWith(DriverConstants.WSSPREFIX)) {
+            props.setProperty(DriverConstants.WEBSOCKET, remainder);
+            return props;
+        } else if (url.substring(23).contains(DriverConstants.ENDPOINT_SEPARATOR)) {
+            StringBuilder endpoints = new StringBuilder();
+            for (String address : url.substring(23).split(DriverConstants.ENDPOINT_SEPARATOR)) {
+                address = address.trim();
+                if (address.isEmpty()) {
+                    continue;
+                }
+                if (endpoints.length() > 0) {
+                    endpoints.append(DriverConstants.ENDPOINT_SEPARATOR);
+                }
+                if (address.contains("://")) {
+                    endpoints.append(address);
+                } else if (address.contains("infura")) {
+                    endpoints.append(DriverConstants.HTTPPSREFIX).append(address);
+                } else {
+                    endpoints.append(DriverConstants.HTTPPREFIX).append(address);
+                }
+            }
+            props.setProperty(DriverConstants.ENDPOINTS, endpoints.toString());
+            return props;
+        } else if (url.contains(".ipc")) {
             String path = url.substring(23);
             props.setProperty(DriverConstants.IPC, path);
             if (path.indexOf(DriverConstants.COLON) > 0) {
@@ -0,0 +1,107 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.jdbc;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.parser.EthQueryExecutor;
+
+/**
+ * Forward only result set for statements with a fetch size. It runs the query over the next block sub-range only
+ * when the cursor has read all rows of the current one. Sub-ranges are sized from the rows per block seen so far, to
+ * hold about fetch size rows, and never span more than fetch size blocks.
+ */
+public class EthPagedResultSet extends EthChunkedResultSet {
+
+    private final EthQueryExecutor executor;
+
+    private final int fetchSize;
+
+    private final List<Range<BigInteger>> scanRanges;
+
+    private int scanRangeIndex;
+
+    private BigInteger nextBlock;
+
+    private long remaining;
+
+    private long scannedBlocks;
+
+    private long scannedRows;
+
+    public EthPagedResultSet(EthQueryExecutor executor, int fetchSize, int rSetConcurrency, String tableName) {
+        super(executor, ResultSet.TYPE_FORWARD_ONLY, rSetConcurrency, tableName);
+        this.executor = executor;
+        this.fetchSize = fetchSize;
+        this.scanRanges = executor.getScanRanges();
+        int limit = executor.getLimit();
+        this.remaining = limit < 0 ? Long.MAX_VALUE : limit;
+        if (!scanRanges.isEmpty()) {
+            nextBlock = scanRanges.get(0).getMin();
+        }
+    }
+
+    @Override
+    protected List<List<Object>> fetchChunk() throws SQLException {
+        Range<BigInteger> window;
+        while (remaining > 0 && (window = nextWindow()) != null) {
+            List<List<Object>> rows;
+            try {
+                rows = executor.executeWindow(window).getData();
+            } catch (Exception e) {
+                throw new SQLException("Error while fetching rows", e);
+            }
+            scannedBlocks += window.getMax().subtract(window.getMin()).longValue() + 1;
+            scannedRows += rows.size();
+            if (rows.size() > remaining) {
+                rows = firstRows(rows, (int) remaining);
+            }
+            remaining -= rows.size();
+            if (!rows.isEmpty()) {
+                return rows;
+            }
+        }
+        return null;
+    }
+
+    private Range<BigInteger> nextWindow() {
+        while (scanRangeIndex < scanRanges.size() && nextBlock.compareTo(scanRanges.get(scanRangeIndex).getMax()) > 0) {
+            scanRangeIndex++;
+            if (scanRangeIndex < scanRanges.size()) {
+                nextBlock = scanRanges.get(scanRangeIndex).getMin();
+            }
+        }
+        if (scanRangeIndex >= scanRanges.size()) {
+            return null;
+        }
+        long blocks = scannedRows == 0 ? fetchSize : Math.min(fetchSize, fetchSize * scannedBlocks / scannedRows);
+        BigInteger last = nextBlock.add(BigInteger.valueOf(Math.max(blocks, 1) - 1))
+                .min(scanRanges.get(scanRangeIndex).getMax());
+        Range<BigInteger> window = new Range<>(nextBlock, last);
+        nextBlock = last.add(BigInteger.ONE);
+        return window;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkClosed();
+        return fetchSize;
+    }
+}
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import com.impetus.blkch.jdbc.AbstractResultSet;
 import com.impetus.blkch.sql.DataFrame;
+import com.impetus.eth.columnar.ColumnBatch;
 
 /**
  * The Class EthResultSet.
@@ -52,7 +53,13 @@ public class EthResultSet extends AbstractResultSet {
 
     protected List<List<Object>> rowData;
 
-    protected Object[] currentRow;
+    /** Row the cursor is on when the rows are held as lists, read in place. */
+    protected List<Object> currentRow;
+
+    /** Columns of the rows when they are held column by column, the cursor then reads them in place. */
+    protected ColumnBatch columnBatch;
+
+    protected int batchRow = -1;
 
     protected Map<String, Integer> columnNamesMap;
 
@@ -63,12 +70,15 @@ public class EthResultSet extends AbstractResultSet {
     protected String tableName;
 
     protected Map<String, String> aliasMapping;
-    
+
+    /** Column index of every label and alias, resolved on the first read by label. */
+    private Map<String, Integer> labelIndexes;
+
     private static final String EXCEPTION_MSG = "Result set doesn't contain index %d";
 
     public EthResultSet(DataFrame dataframe, int resultSetType, int rSetConcurrency, String tableName) {
         LOGGER.info("Instantiating new Result Set ");
-        this.rowData = dataframe.getData();
+        setRowData(dataframe.getData());
         this.columnNamesMap = dataframe.getColumnNamesMap();
         this.resultSetType = resultSetType;
         this.rSetConcurrency = rSetConcurrency;
@@ -78,6 +88,19 @@ public class EthResultSet extends AbstractResultSet {
         totalRowCount = rowData.size();
     }
 
+    protected EthResultSet(Map<String, Integer> columnNamesMap, Map<String, String> aliasMapping,
+            int resultSetType, int rSetConcurrency, String tableName) {
+        LOGGER.info("Instantiating new Result Set ");
+        this.rowData = new ArrayList<>();
+        this.columnNamesMap = columnNamesMap;
+        this.resultSetType = resultSetType;
+        this.rSetConcurrency = rSetConcurrency;
+        this.tableName = tableName;
+        this.aliasMapping = aliasMapping;
+        currentRowCursor = BEFORE_FIRST_ROW;
+        totalRowCount = 0;
+    }
+
 
     public EthResultSet(Object data, int resultSetType, int rSetConcurrency) {
         LOGGER.info("Instantiating new Result Set ");
@@ -112,11 +135,13 @@ public class EthResultSet extends AbstractResultSet {
             this.totalRowCount = 0;
             this.rowData = null;
             this.currentRow = null;
+            this.columnBatch = null;
             this.columnNamesMap = null;
             this.resultSetType = 0;
             this.rSetConcurrency = 0;
             this.tableName = null;
             this.aliasMapping = null;
+            this.labelIndexes = null;
         }catch (Exception e){
             throw new BlkchnException("Error while closing ResultSet",e);
         }
@@ -130,11 +155,10 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean first() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to the first row of ResultSet Object");
         checkRSForward();
         if (totalRowCount > 0) {
             currentRowCursor = 1;
-            currentRow = rowData.get(currentRowCursor - 1).toArray();
+            moveToRow(currentRowCursor - 1);
             return true;
         }
         return false;
@@ -143,11 +167,10 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean last() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to the last row of ResultSet Object");
         checkRSForward();
         if (totalRowCount > 0) {
             currentRowCursor = totalRowCount;
-            currentRow = rowData.get(currentRowCursor - 1).toArray();
+            moveToRow(currentRowCursor - 1);
             return true;
         }
         return false;
@@ -156,10 +179,9 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean next() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to the next row of ResultSet Object");
         if (currentRowCursor != AFTER_LAST_ROW && currentRowCursor < totalRowCount) {
             currentRowCursor++;
-            currentRow = rowData.get(currentRowCursor - 1).toArray();
+            moveToRow(currentRowCursor - 1);
             return true;
         } else {
             currentRowCursor = AFTER_LAST_ROW;
@@ -170,11 +192,10 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean previous() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to the previous row of ResultSet Object");
         checkRSForward();
         if (currentRowCursor > 1) {
             currentRowCursor--;
-            currentRow = rowData.get(currentRowCursor - 1).toArray();
+            moveToRow(currentRowCursor - 1);
             return true;
         } else {
             currentRowCursor = BEFORE_FIRST_ROW;
@@ -185,7 +206,6 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public void afterLast() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to thee end of ResultSet Object");
         checkRSForward();
         currentRowCursor = AFTER_LAST_ROW;
     }
@@ -193,7 +213,6 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public void beforeFirst() throws SQLException {
         checkClosed();
-        LOGGER.info("Moving the cursor to the front of ResultSet Object");
         checkRSForward();
         currentRowCursor = BEFORE_FIRST_ROW;
     }
@@ -201,7 +220,6 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean isFirst() throws SQLException {
         checkClosed();
-        LOGGER.info("Checking if cursor is on the first row of result set object");
         if (currentRowCursor == 1)
             return true;
         else
@@ -211,7 +229,6 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public boolean isLast() throws SQLException {
         checkClosed();
-        LOGGER.info("Checking if cursor is on the last row of result set object");
         if (currentRowCursor == totalRowCount)
             return true;
         else
@@ -233,7 +250,7 @@ public class EthResultSet extends AbstractResultSet {
 
         if ((rows < 0 && (currentRowCursor + rows) > 0) || (rows > 0 && (currentRowCursor + rows) <= totalRowCount)) {
             currentRowCursor = currentRowCursor + rows;
-            currentRow = rowData.get(currentRowCursor - 1).toArray();
+            moveToRow(currentRowCursor - 1);
             return true;
         } else
             return false;
@@ -243,7 +260,6 @@ public class EthResultSet extends AbstractResultSet {
     @Override
     public int getFetchSize() throws SQLException {
         checkClosed();
-        LOGGER.info("Calculating Result set fetch size");
         return totalRowCount;
     }
 
@@ -251,156 +267,166 @@ public class EthResultSet extends AbstractResultSet {
     public String getString(String columnLabel) throws SQLException {
         checkClosed();
         int idx = getColumnIndex(columnLabel);
-        if(currentRow[idx] instanceof BigInteger){
-            return ((BigInteger) currentRow[idx]).toString();
+        if(value(idx) instanceof BigInteger){
+            return ((BigInteger) value(idx)).toString();
         }
-        return (String) currentRow[idx];
+        return (String) value(idx);
     }
 
     @Override
     public String getString(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        if(currentRow[columnIndex - 1] instanceof BigInteger){
-            return ((BigInteger) currentRow[columnIndex - 1]).toString();
+        if(value(columnIndex - 1) instanceof BigInteger){
+            return ((BigInteger) value(columnIndex - 1)).toString();
         }
-        return (String) currentRow[columnIndex - 1];
+        return (String) value(columnIndex - 1);
     }
 
     @Override
     public Object getObject(String columnLabel) throws SQLException {
         checkClosed();
-        return currentRow[getColumnIndex(columnLabel)];
+        return value(getColumnIndex(columnLabel));
     }
 
     @Override
     public Object getObject(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return currentRow[columnIndex - 1];
+        return value(columnIndex - 1);
     }
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (int) currentRow[columnIndex - 1];
+        if (columnBatch != null && columnBatch.hasLong(batchRow, columnIndex - 1)) {
+            long value = columnBatch.getLong(batchRow, columnIndex - 1);
+            try {
+                return Math.toIntExact(value);
+            } catch (ArithmeticException e) {
+                throw new SQLException("Value " + value + " of column " + columnIndex + " doesn't fit in an int", e);
+            }
+        }
+        return (int) value(columnIndex - 1);
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
         checkClosed();
-        return (int) currentRow[getColumnIndex(columnLabel)];
+        return getInt(getColumnIndex(columnLabel) + 1);
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (long) currentRow[columnIndex - 1];
+        return columnBatch != null && columnBatch.hasLong(batchRow, columnIndex - 1)
+                ? columnBatch.getLong(batchRow, columnIndex - 1) : (long) value(columnIndex - 1);
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
         checkClosed();
-        return (long) currentRow[getColumnIndex(columnLabel)];
+        return getLong(getColumnIndex(columnLabel) + 1);
     }
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (BigDecimal) currentRow[columnIndex - 1];
+        return (BigDecimal) value(columnIndex - 1);
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
         checkClosed();
-        return (BigDecimal) currentRow[getColumnIndex(columnLabel)];
+        return (BigDecimal) value(getColumnIndex(columnLabel));
     }
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (boolean) currentRow[columnIndex - 1];
+        return (boolean) value(columnIndex - 1);
     }
 
     @Override
     public boolean getBoolean(String columnLabel) throws SQLException {
         checkClosed();
-        return (boolean) currentRow[getColumnIndex(columnLabel)];
+        return (boolean) value(getColumnIndex(columnLabel));
     }
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (byte) currentRow[columnIndex - 1];
+        return (byte) value(columnIndex - 1);
     }
 
     @Override
     public byte getByte(String columnLabel) throws SQLException {
         checkClosed();
-        return (byte) currentRow[getColumnIndex(columnLabel)];
+        return (byte) value(getColumnIndex(columnLabel));
     }
 
     @Override
     public byte[] getBytes(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (byte[]) currentRow[columnIndex - 1];
+        byte[] packed = columnBatch == null ? null : columnBatch.getBytes(batchRow, columnIndex - 1);
+        return packed != null ? packed : (byte[]) value(columnIndex - 1);
     }
 
     @Override
     public byte[] getBytes(String columnLabel) throws SQLException {
-        return (byte[]) currentRow[getColumnIndex(columnLabel)];
+        return getBytes(getColumnIndex(columnLabel) + 1);
     }
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (double) currentRow[columnIndex - 1];
+        return (double) value(columnIndex - 1);
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
         checkClosed();
-        return (double) currentRow[getColumnIndex(columnLabel)];
+        return (double) value(getColumnIndex(columnLabel));
     }
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
         checkClosed();
-        if(columnIndex < 1 || columnIndex > currentRow.length){
+        if(columnIndex < 1 || columnIndex > columnCount()){
             throw new SQLException(String.format(EXCEPTION_MSG, columnIndex));
         }
-        return (short) currentRow[columnIndex - 1];
+        return (short) value(columnIndex - 1);
     }
 
     @Override
     public short getShort(String columnLabel) throws SQLException {
         checkClosed();
-        return (short) currentRow[getColumnIndex(columnLabel)];
+        return (short) value(getColumnIndex(columnLabel));
     }
 
     @Override
@@ -427,17 +453,58 @@ public class EthResultSet extends AbstractResultSet {
         return columnNamesMap.get(columnLabel);
     }
 
+    /**
+     * Sets the rows the cursor moves over, rows held in columns are read in place.
+     */
+    protected void setRowData(List<List<Object>> rows) {
+        rowData = rows;
+        columnBatch = rows instanceof ColumnBatch.Rows ? ((ColumnBatch.Rows) rows).getBatch() : null;
+    }
+
+    /**
+     * Moves the cursor to a row of the row data, by index from zero.
+     */
+    protected void moveToRow(int index) {
+        if (columnBatch != null) {
+            batchRow = index;
+        } else {
+            currentRow = rowData.get(index);
+        }
+    }
+
+    private Object value(int index) {
+        return columnBatch != null ? columnBatch.get(batchRow, index) : currentRow.get(index);
+    }
+
+    private int columnCount() {
+        return columnBatch != null ? columnBatch.getColumns().size() : currentRow.size();
+    }
+
     protected void checkRSForward() throws SQLException {
         checkClosed();
-        LOGGER.info("checking result set type ");
         if (resultSetType == ResultSet.TYPE_FORWARD_ONLY) {
             LOGGER.error("Result Set is Type Forward only. Exiting...");
             throw new SQLException("Result Set is Type Forward only", "1000");
         }
-        LOGGER.info("Result set type validation Completed ");
     }
 
     protected int getColumnIndex(String columnLabel) {
+        if (labelIndexes == null) {
+            labelIndexes = new HashMap<>(columnNamesMap);
+            if (aliasMapping != null) {
+                for (Map.Entry<String, String> alias : aliasMapping.entrySet()) {
+                    Integer index = columnNamesMap.get(alias.getValue());
+                    if (index != null) {
+                        labelIndexes.put(alias.getKey(), index);
+                    }
+                }
+            }
+        }
+        Integer index = labelIndexes.get(columnLabel);
+        return index != null ? index : resolveColumnIndex(columnLabel);
+    }
+
+    private int resolveColumnIndex(String columnLabel) {
         if (!aliasMapping.isEmpty() && aliasMapping.containsKey(columnLabel)) {
             return columnNamesMap.get(aliasMapping.get(columnLabel));
         } else {
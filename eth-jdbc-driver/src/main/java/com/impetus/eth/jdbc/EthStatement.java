@@ -65,6 +65,8 @@ public class EthStatement implements BlkchnStatement {
 
     private ResultSet queryResultSet = null;
 
+    private int fetchSize;
+
     /** Has this statement been closed?*/
     protected boolean isClosed = false;
 
@@ -202,7 +204,7 @@ public class EthStatement implements BlkchnStatement {
         Object result = null;
         switch (logicalPlan.getType()) {
             case INSERT:
-                result = new EthQueryExecutor(logicalPlan, connection.getWeb3jClient(), connection.getInfo())
+                result = new EthQueryExecutor(logicalPlan, connection)
                         .executeAndReturn();
                 LOGGER.info("Exiting from execute Block with result: " + result);
                 queryResultSet = new EthResultSet(result, rSetType, rSetConcurrency);
@@ -211,8 +213,20 @@ public class EthStatement implements BlkchnStatement {
             default:
                 Table table = logicalPlan.getQuery().getChildType(FromItem.class, 0).getChildType(Table.class, 0);
                 String tableName = table.getChildType(IdentifierNode.class, 0).getValue();
-                DataFrame dataframe = new EthQueryExecutor(logicalPlan, connection.getWeb3jClient(), connection.getInfo())
-                            .executeQuery();
+                EthQueryExecutor executor = new EthQueryExecutor(logicalPlan, connection);
+                if (fetchSize > 0 && rSetType != ResultSet.TYPE_SCROLL_INSENSITIVE
+                        && rSetType != ResultSet.TYPE_SCROLL_SENSITIVE && executor.isStreamable()) {
+                    queryResultSet = new EthPagedResultSet(executor, fetchSize, rSetConcurrency, tableName);
+                    LOGGER.info("Exiting from executeQuery Block");
+                    return queryResultSet;
+                }
+                if (rSetType == ResultSet.TYPE_FORWARD_ONLY && executor.isStreamable()) {
+                    queryResultSet = new EthStreamingResultSet(executor, executor.getDefaultWindowSize(), rSetType,
+                            rSetConcurrency, tableName);
+                    LOGGER.info("Exiting from executeQuery Block");
+                    return queryResultSet;
+                }
+                DataFrame dataframe = executor.executeQuery();
                 queryResultSet = new EthResultSet(dataframe, rSetType, rSetConcurrency, tableName);
                 LOGGER.info("Exiting from executeQuery Block");
                 return queryResultSet;
@@ -251,7 +265,7 @@ public class EthStatement implements BlkchnStatement {
 
     @Override
     public int getFetchSize() throws SQLException {
-        throw new UnsupportedOperationException();
+        return fetchSize;
     }
 
     @Override
@@ -346,9 +360,16 @@ public class EthStatement implements BlkchnStatement {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Sets the number of rows fetched at a time. Range scans without order by, group by or aggregates then fetch the
+     * next block sub-range only when all rows of the current one are read, unless the statement is scrollable.
+     */
     @Override
     public void setFetchSize(int rows) throws SQLException {
-        throw new UnsupportedOperationException();
+        if (rows < 0) {
+            throw new SQLException("Fetch size should not be less than zero");
+        }
+        this.fetchSize = rows;
     }
 
     @Override
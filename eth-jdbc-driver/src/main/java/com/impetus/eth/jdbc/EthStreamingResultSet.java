@@ -0,0 +1,159 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.jdbc;
+
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.parser.EthQueryExecutor;
+
+/**
+ * Forward only result set which yields rows while later blocks are still being fetched. A producer thread runs the
+ * query window by window and hands each window's rows over a bounded queue, so at most a couple of windows are held
+ * in memory whatever the size of the scanned range. The producer only holds the result set weakly, and stops when
+ * the result set is closed or dropped without being closed.
+ */
+public class EthStreamingResultSet extends EthChunkedResultSet {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EthStreamingResultSet.class);
+
+    private static final List<List<Object>> END_OF_ROWS = new ArrayList<>();
+
+    /** How long the producer waits on a full queue before checking whether the result set is still in use. */
+    private static final long OWNER_CHECK_MILLIS = 1000;
+
+    private final BlockingQueue<List<List<Object>>> chunks = new ArrayBlockingQueue<>(1);
+
+    private final Producer producer;
+
+    private final Thread producerThread;
+
+    public EthStreamingResultSet(EthQueryExecutor executor, int windowSize, int resultSetType, int rSetConcurrency,
+            String tableName) {
+        super(executor, resultSetType, rSetConcurrency, tableName);
+        producer = new Producer(this, executor, executor.getScanWindows(windowSize), executor.getLimit(), chunks);
+        producerThread = new Thread(producer, "eth-result-stream");
+        producerThread.setDaemon(true);
+        producerThread.start();
+    }
+
+    @Override
+    protected List<List<Object>> fetchChunk() throws SQLException {
+        List<List<Object>> chunk;
+        try {
+            chunk = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for rows", e);
+        }
+        if (chunk == END_OF_ROWS) {
+            if (producer.failure != null) {
+                throw new SQLException("Error while fetching rows", producer.failure);
+            }
+            return null;
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (isClosed()) {
+            return;
+        }
+        producerThread.interrupt();
+        chunks.clear();
+        super.close();
+    }
+
+    /**
+     * Runs the query window by window. It refers to the result set through a weak reference only, so a result set
+     * dropped without being closed can be collected, after which the producer gives up on its next hand over.
+     */
+    private static class Producer implements Runnable {
+
+        private final WeakReference<EthStreamingResultSet> owner;
+
+        private final EthQueryExecutor executor;
+
+        private final Iterator<Range<BigInteger>> windows;
+
+        private final int limit;
+
+        private final BlockingQueue<List<List<Object>>> chunks;
+
+        private volatile Exception failure;
+
+        Producer(EthStreamingResultSet owner, EthQueryExecutor executor, Iterator<Range<BigInteger>> windows,
+                int limit, BlockingQueue<List<List<Object>>> chunks) {
+            this.owner = new WeakReference<>(owner);
+            this.executor = executor;
+            this.windows = windows;
+            this.limit = limit;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void run() {
+            long remaining = limit < 0 ? Long.MAX_VALUE : limit;
+            try {
+                while (remaining > 0 && windows.hasNext()) {
+                    List<List<Object>> rows = executor.executeWindow(windows.next()).getData();
+                    if (rows.size() > remaining) {
+                        rows = firstRows(rows, (int) remaining);
+                    }
+                    remaining -= rows.size();
+                    if (!rows.isEmpty() && !handOver(rows)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                LOGGER.error("Error while fetching rows of result set", e);
+                failure = e;
+            }
+            try {
+                handOver(END_OF_ROWS);
+            } catch (InterruptedException e) {
+                // result set closed, nobody is waiting for the end
+            }
+        }
+
+        /**
+         * Puts rows on the queue, returning false without them when the result set is no longer in use.
+         */
+        private boolean handOver(List<List<Object>> rows) throws InterruptedException {
+            while (!chunks.offer(rows, OWNER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (owner.get() == null) {
+                    LOGGER.debug("Result set dropped without being closed, stopping its scan");
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
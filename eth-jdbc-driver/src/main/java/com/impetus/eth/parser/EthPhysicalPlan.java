@@ -17,11 +17,18 @@ package com.impetus.eth.parser;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.impetus.blkch.sql.parser.LogicalPlan;
 import com.impetus.blkch.sql.parser.PhysicalPlan;
+import com.impetus.blkch.sql.parser.TreeNode;
+import com.impetus.blkch.sql.query.Column;
+import com.impetus.blkch.sql.query.IdentifierNode;
+import com.impetus.blkch.sql.query.StarNode;
 import com.impetus.blkch.util.BigIntegerRangeOperations;
 import com.impetus.blkch.util.RangeOperations;
 import com.impetus.blkch.util.Tuple2;
@@ -67,8 +74,11 @@ public class EthPhysicalPlan extends PhysicalPlan {
                         EthColumns.TRANSACTIONINDEX, EthColumns.V, EthColumns.VALUE));
     }
 
+    private LogicalPlan logicalPlan;
+
     public EthPhysicalPlan(LogicalPlan logicalPlan) {
         super(DESCRIPTION, logicalPlan);
+        this.logicalPlan = logicalPlan;
     }
 
     @Override
@@ -99,6 +109,37 @@ public class EthPhysicalPlan extends PhysicalPlan {
         return ethTableColumnMap.get(table).contains(column);
     }
 
+    /**
+     * Returns the columns of the table which the select, where, group by, order by and having clauses refer to,
+     * in table column order. Aliases are resolved to their columns and a star select refers to every column.
+     */
+    public List<String> getReferencedColumns(String table) {
+        List<String> tableColumns = ethTableColumnMap.get(table);
+        if (tableColumns == null || logicalPlan.getQuery() == null
+                || getSelectItems().stream().anyMatch(item -> item.hasChildType(StarNode.class))) {
+            return tableColumns;
+        }
+        Set<String> columnNames = new HashSet<>();
+        collectColumnNames(logicalPlan.getQuery(), columnNames);
+        Map<String, String> aliasMapping = getColumnAliasMapping();
+        Set<String> referencedColumns = new HashSet<>(columnNames);
+        columnNames.stream().filter(aliasMapping::containsKey).map(aliasMapping::get).forEach(referencedColumns::add);
+        return tableColumns.stream().filter(referencedColumns::contains).collect(Collectors.toList());
+    }
+
+    private static void collectColumnNames(TreeNode node, Set<String> columnNames) {
+        if (node instanceof Column) {
+            IdentifierNode identifier = node.getChildType(IdentifierNode.class, 0);
+            if (identifier != null) {
+                columnNames.add(identifier.getValue());
+            }
+            return;
+        }
+        for (TreeNode child : node.getChildNodes()) {
+            collectColumnNames(child, columnNames);
+        }
+    }
+
     static Map<String, List<String>> getEthTableColumnMap() {
         return ethTableColumnMap;
     }
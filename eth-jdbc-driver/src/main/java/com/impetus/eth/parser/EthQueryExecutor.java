@@ -16,15 +16,24 @@
 package com.impetus.eth.parser;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -33,11 +42,16 @@ import org.web3j.crypto.CipherException;
 import org.web3j.crypto.Credentials;
 import org.web3j.crypto.WalletUtils;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
 import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
 import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
 import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.Transaction;
 import org.web3j.protocol.exceptions.TransactionTimeoutException;
 import org.web3j.tx.Transfer;
@@ -56,7 +70,9 @@ import com.impetus.blkch.sql.query.Column;
 import com.impetus.blkch.sql.query.Comparator;
 import com.impetus.blkch.sql.query.DataNode;
 import com.impetus.blkch.sql.query.DirectAPINode;
+import com.impetus.blkch.sql.query.FilterItem;
 import com.impetus.blkch.sql.query.FromItem;
+import com.impetus.blkch.sql.query.FunctionNode;
 import com.impetus.blkch.sql.query.GroupByClause;
 import com.impetus.blkch.sql.query.HavingClause;
 import com.impetus.blkch.sql.query.IdentifierNode;
@@ -66,12 +82,24 @@ import com.impetus.blkch.sql.query.LogicalOperation.Operator;
 import com.impetus.blkch.sql.query.OrderByClause;
 import com.impetus.blkch.sql.query.OrderItem;
 import com.impetus.blkch.sql.query.RangeNode;
+import com.impetus.blkch.sql.query.SelectItem;
+import com.impetus.blkch.sql.query.StarNode;
 import com.impetus.blkch.sql.query.Table;
 import com.impetus.blkch.util.Range;
 import com.impetus.blkch.util.RangeOperations;
+import com.impetus.eth.cache.BlockCache;
+import com.impetus.eth.cache.HeadTracker;
+import com.impetus.eth.cache.TransactionIndex;
+import com.impetus.eth.columnar.AddressDictionary;
+import com.impetus.eth.columnar.BlockColumnDecoder;
+import com.impetus.eth.columnar.ColumnBatch;
 import com.impetus.eth.jdbc.DriverConstants;
+import com.impetus.eth.jdbc.EthConnection;
 import com.impetus.eth.query.EthColumns;
 import com.impetus.eth.query.EthTables;
+import com.impetus.eth.rpc.BatchNotSupportedException;
+import com.impetus.eth.rpc.BatchService;
+import com.impetus.eth.store.BlockStore;
 
 public class EthQueryExecutor extends AbstractQueryExecutor {
 
@@ -83,11 +111,38 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EthQueryExecutor.class);
 
+    /** Upper end of a block number range left open by the where clause, until it is ended at the chain head. */
+    private static final BigInteger OPEN_END = BigInteger.valueOf(Long.MAX_VALUE);
+
     private Web3j web3jClient;
 
+    private Web3jService web3jService;
+
     private Properties properties;
 
-    protected Map<String, List<String>> blkTxnHashMap = new HashMap<>();
+    private int batchSize = DriverConstants.DEFAULT_BATCH_SIZE;
+
+    private ForkJoinPool fetchPool;
+
+    private BlockCache blockCache;
+
+    private BlockStore blockStore;
+
+    private HeadTracker headTracker;
+
+    private TransactionIndex transactionIndex;
+
+    private int confirmationDepth = DriverConstants.DEFAULT_CONFIRMATION_DEPTH;
+
+    private boolean fullBlockTransactions = true;
+
+    private Range<BigInteger> scanWindow;
+
+    private TreeNode streamTree;
+
+    private boolean columnarDecode;
+
+    private AddressDictionary addressDictionary;
 
     public EthQueryExecutor(LogicalPlan logicalPlan, Web3j web3jClient, Properties properties) {
         this.logicalPlan = logicalPlan;
@@ -96,6 +151,20 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         this.physicalPlan = new EthPhysicalPlan(logicalPlan);
     }
 
+    public EthQueryExecutor(LogicalPlan logicalPlan, EthConnection connection) {
+        this(logicalPlan, connection.getWeb3jClient(), connection.getInfo());
+        this.web3jService = connection.getWeb3jService();
+        this.batchSize = connection.getBatchSize();
+        this.fetchPool = connection.getFetchPool();
+        this.blockCache = connection.getBlockCache();
+        this.blockStore = connection.getBlockStore();
+        this.headTracker = connection.getHeadTracker();
+        this.transactionIndex = connection.getTransactionIndex();
+        this.confirmationDepth = connection.getConfirmationDepth();
+        this.columnarDecode = connection.isColumnarDecode();
+        this.addressDictionary = connection.getAddressDictionary();
+    }
+
     public DataFrame executeQuery() {
         physicalPlan.getWhereClause().traverse();
         if (!physicalPlan.validateLogicalPlan()) {
@@ -148,21 +217,61 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         DataFrame afterOrder;
         if (limitClause == null) {
             afterOrder = preSelect;
+        } else if (preSelect.getData() instanceof ColumnBatch.Rows) {
+            ColumnBatch batch = ((ColumnBatch.Rows) preSelect.getData()).getBatch();
+            afterOrder = new DataFrame(batch.slice(0, Math.min(getLimit(), batch.getRowCount())).asRows(),
+                    batch.getColumns(), preSelect.getAliasMapping());
         } else {
             afterOrder = preSelect.limit(limitClause);
         }
-        return afterOrder.select(physicalPlan.getSelectItems());
+        return select(afterOrder);
+    }
+
+    /**
+     * Selects the columns of the select clause. Rows held in columns stay in columns when the select clause only
+     * names columns, the result is then a view over the same batch.
+     */
+    private DataFrame select(DataFrame dataframe) {
+        List<SelectItem> selectItems = physicalPlan.getSelectItems();
+        if (!(dataframe.getData() instanceof ColumnBatch.Rows)) {
+            return dataframe.select(selectItems);
+        }
+        Map<String, Integer> columnNamesMap = dataframe.getColumnNamesMap();
+        Map<String, String> aliasMapping = dataframe.getAliasMapping();
+        List<String> names = new ArrayList<>();
+        int[] selected = new int[selectItems.size()];
+        for (SelectItem item : selectItems) {
+            if (item.hasChildType(StarNode.class) && selectItems.size() == 1) {
+                return dataframe;
+            }
+            if (!item.hasChildType(Column.class)) {
+                return dataframe.select(selectItems);
+            }
+            String name = item.getChildType(Column.class, 0).getChildType(IdentifierNode.class, 0).getValue();
+            Integer index = columnNamesMap.containsKey(name) ? columnNamesMap.get(name)
+                    : columnNamesMap.get(aliasMapping.get(name));
+            if (index == null) {
+                return dataframe.select(selectItems);
+            }
+            selected[names.size()] = index;
+            names.add(name);
+        }
+        ColumnBatch batch = ((ColumnBatch.Rows) dataframe.getData()).getBatch();
+        return new DataFrame(batch.project(selected, names).asRows(), names, aliasMapping);
     }
 
     private DataFrame getFromTable() {
-        Table table = logicalPlan.getQuery().getChildType(FromItem.class, 0).getChildType(Table.class, 0);
-        String tableName = table.getChildType(IdentifierNode.class, 0).getValue();
+        String tableName = prepareTable();
         if (physicalPlan.getWhereClause() != null) {
             DataNode<?> finalData;
             if (physicalPlan.getWhereClause().hasChildType(LogicalOperation.class)) {
                 TreeNode directAPIOptimizedTree = executeDirectAPIs(tableName,
                         physicalPlan.getWhereClause().getChildType(LogicalOperation.class, 0));
                 TreeNode optimizedTree = optimize(directAPIOptimizedTree);
+                DataFrame decoded = scanColumns(optimizedTree);
+                if (decoded != null) {
+                    return decoded;
+                }
                 finalData = execute(optimizedTree);
             } else if (physicalPlan.getWhereClause().hasChildType(DirectAPINode.class)) {
                 System.out.println("in direct API Block");
@@ -170,6 +279,10 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
                 finalData = getDataNode(node.getTable(), node.getColumn(), node.getValue());
             } else {
                 RangeNode<?> rangeNode = physicalPlan.getWhereClause().getChildType(RangeNode.class, 0);
+                DataFrame decoded = scanColumns(rangeNode);
+                if (decoded != null) {
+                    return decoded;
+                }
                 finalData = executeRangeNode(rangeNode);
                 finalData.traverse();
             }
@@ -180,6 +293,273 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
 
     }
 
+    private String prepareTable() {
+        Table table = logicalPlan.getQuery().getChildType(FromItem.class, 0).getChildType(Table.class, 0);
+        String tableName = table.getChildType(IdentifierNode.class, 0).getValue();
+        if (EthTables.BLOCK.equals(tableName)) {
+            // blocks come with transaction hashes only, unless the query refers to the transactions column
+            fullBlockTransactions = ((EthPhysicalPlan) physicalPlan).getReferencedColumns(tableName)
+                    .contains(EthColumns.TRANSACTIONS);
+        }
+        return tableName;
+    }
+
+    /**
+     * Tells whether the query can be run window by window over its block number ranges: it has no order by, group
+     * by, having or aggregate function, and its where clause has no direct API lookups.
+     */
+    public boolean isStreamable() {
+        if (logicalPlan.getQuery() == null || logicalPlan.getQuery().hasChildType(OrderByClause.class)
+                || logicalPlan.getQuery().hasChildType(GroupByClause.class)
+                || logicalPlan.getQuery().hasChildType(HavingClause.class) || physicalPlan.getWhereClause() == null) {
+            return false;
+        }
+        if (physicalPlan.getSelectItems().stream().anyMatch(item -> item.hasChildType(FunctionNode.class))) {
+            return false;
+        }
+        return physicalPlan.validateLogicalPlan() && !hasDirectAPINode(physicalPlan.getWhereClause());
+    }
+
+    private static boolean hasDirectAPINode(TreeNode node) {
+        if (node instanceof DirectAPINode) {
+            return true;
+        }
+        return node.getChildNodes().stream().anyMatch(EthQueryExecutor::hasDirectAPINode);
+    }
+
+    /**
+     * Returns the block number ranges of the where clause with open ends resolved, sorted and without overlaps.
+     */
+    public List<Range<BigInteger>> getScanRanges() {
+        List<Range<BigInteger>> spans = collectBlockRanges(physicalPlan.getWhereClause());
+        return spans == null ? new ArrayList<>() : resolveRanges(spans);
+    }
+
+    /**
+     * Returns the block number ranges a node of the where clause selects, sorted and without overlaps, with open upper
+     * ends left at {@link #OPEN_END}. Ranges joined by AND are intersected and ranges joined by OR are merged. Returns
+     * null when the node doesn't bound the block numbers.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<Range<BigInteger>> collectBlockRanges(TreeNode node) {
+        if (node instanceof RangeNode) {
+            RangeNode rangeNode = (RangeNode) node;
+            RangeOperations rangeOps = physicalPlan.getRangeOperations(rangeNode.getTable(), rangeNode.getColumn());
+            List<Range<BigInteger>> spans = new ArrayList<>();
+            for (Object range : rangeNode.getRangeList().getRanges()) {
+                Range<BigInteger> span = boundRange((Range) range, rangeOps);
+                if (span != null) {
+                    spans.add(span);
+                }
+            }
+            return mergeRanges(spans);
+        }
+        boolean or = node instanceof LogicalOperation && ((LogicalOperation) node).isOr();
+        List<Range<BigInteger>> spans = null;
+        for (TreeNode child : node.getChildNodes()) {
+            List<Range<BigInteger>> childSpans = collectBlockRanges(child);
+            if (childSpans == null) {
+                continue;
+            }
+            if (spans == null) {
+                spans = childSpans;
+            } else if (or) {
+                spans.addAll(childSpans);
+                spans = mergeRanges(spans);
+            } else {
+                spans = intersectRanges(spans, childSpans);
+            }
+        }
+        return spans;
+    }
+
+    private <T extends Number & Comparable<T>> Range<BigInteger> boundRange(Range<T> range,
+            RangeOperations<T> rangeOps) {
+        BigInteger min = range.getMin().equals(rangeOps.getMinValue()) ? BigInteger.ZERO
+                : new BigInteger(range.getMin().toString());
+        BigInteger max = range.getMax().equals(rangeOps.getMaxValue()) ? OPEN_END
+                : new BigInteger(range.getMax().toString());
+        return min.compareTo(max) > 0 ? null : new Range<>(min, max);
+    }
+
+    private static List<Range<BigInteger>> intersectRanges(List<Range<BigInteger>> first,
+            List<Range<BigInteger>> second) {
+        List<Range<BigInteger>> spans = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            BigInteger min = first.get(i).getMin().max(second.get(j).getMin());
+            BigInteger max = first.get(i).getMax().min(second.get(j).getMax());
+            if (min.compareTo(max) <= 0) {
+                spans.add(new Range<>(min, max));
+            }
+            if (first.get(i).getMax().compareTo(second.get(j).getMax()) < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Clamps the ranges to the scan window, or ends the open ones at the block below the chain head, and drops the
+     * ones left empty.
+     */
+    private List<Range<BigInteger>> resolveRanges(List<Range<BigInteger>> spans) {
+        List<Range<BigInteger>> resolved = new ArrayList<>();
+        BigInteger lastBlock = null;
+        for (Range<BigInteger> span : spans) {
+            BigInteger min = span.getMin();
+            BigInteger max = span.getMax();
+            if (scanWindow != null) {
+                min = min.max(scanWindow.getMin());
+                max = max.min(scanWindow.getMax());
+            } else if (max.equals(OPEN_END)) {
+                if (lastBlock == null) {
+                    try {
+                        lastBlock = getBlockHeight().subtract(BigInteger.ONE);
+                    } catch (Exception e) {
+                        throw new BlkchnException("Error getting height of ledger", e);
+                    }
+                }
+                max = lastBlock;
+            }
+            if (min.compareTo(max) <= 0) {
+                resolved.add(new Range<>(min, max));
+            }
+        }
+        return resolved;
+    }
+
+    private static List<Range<BigInteger>> mergeRanges(List<Range<BigInteger>> spans) {
+        spans.sort((first, second) -> first.getMin().compareTo(second.getMin()));
+        List<Range<BigInteger>> scanRanges = new ArrayList<>();
+        for (Range<BigInteger> span : spans) {
+            Range<BigInteger> last = scanRanges.isEmpty() ? null : scanRanges.get(scanRanges.size() - 1);
+            if (last != null && last.getMax().add(BigInteger.ONE).compareTo(span.getMin()) >= 0) {
+                scanRanges.set(scanRanges.size() - 1, new Range<>(last.getMin(), last.getMax().max(span.getMax())));
+            } else {
+                scanRanges.add(span);
+            }
+        }
+        return scanRanges;
+    }
+
+    /**
+     * Splits the scan ranges into consecutive windows of at most windowSize blocks, made one at a time as they are
+     * asked for. The first window holds a single block so that the first row is available as soon as one block is
+     * fetched.
+     */
+    public Iterator<Range<BigInteger>> getScanWindows(int windowSize) {
+        Iterator<Range<BigInteger>> spans = getScanRanges().iterator();
+        BigInteger size = BigInteger.valueOf(Math.max(windowSize, 1));
+        return new Iterator<Range<BigInteger>>() {
+
+            private Range<BigInteger> span;
+
+            private BigInteger current;
+
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                while ((span == null || current.compareTo(span.getMax()) > 0) && spans.hasNext()) {
+                    span = spans.next();
+                    current = span.getMin();
+                }
+                return span != null && current.compareTo(span.getMax()) <= 0;
+            }
+
+            @Override
+            public Range<BigInteger> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BigInteger last = (first ? current : current.add(size).subtract(BigInteger.ONE)).min(span.getMax());
+                Range<BigInteger> window = new Range<>(current, last);
+                current = last.add(BigInteger.ONE);
+                first = false;
+                return window;
+            }
+        };
+    }
+
+    /**
+     * Returns the default window size of a streamed scan, which keeps every fetch worker busy with one batch.
+     */
+    public int getDefaultWindowSize() {
+        return Math.max(batchSize, 1) * (fetchPool == null ? 1 : fetchPool.getParallelism());
+    }
+
+    /**
+     * Runs the query over the blocks of one scan window and returns the selected rows. Data of earlier windows is
+     * dropped first, so a streamed scan holds one window at a time.
+     */
+    public DataFrame executeWindow(Range<BigInteger> window) {
+        if (streamTree == null) {
+            prepareTable();
+            streamTree = optimize(physicalPlan.getWhereClause().getChildNode(0));
+        }
+        dataMap.clear();
+        auxillaryDataMap.clear();
+        scanWindow = window;
+        try {
+            DataFrame dataframe = scanColumns(streamTree);
+            if (dataframe == null) {
+                dataframe = createDataFrame(execute(streamTree));
+            }
+            if (dataframe.isEmpty()) {
+                return dataframe;
+            }
+            return select(dataframe);
+        } finally {
+            scanWindow = null;
+        }
+    }
+
+    /**
+     * Returns the columns produced by the select clause, in select order.
+     */
+    public List<String> getSelectColumns() {
+        String tableName = logicalPlan.getQuery().getChildType(FromItem.class, 0).getChildType(Table.class, 0)
+                .getChildType(IdentifierNode.class, 0).getValue();
+        List<String> columns = new ArrayList<>();
+        for (SelectItem item : physicalPlan.getSelectItems()) {
+            if (item.hasChildType(StarNode.class)) {
+                columns = new ArrayList<>(((EthPhysicalPlan) physicalPlan).getReferencedColumns(tableName));
+            } else if (item.hasChildType(Column.class)) {
+                columns.add(item.getChildType(Column.class, 0).getChildType(IdentifierNode.class, 0).getValue());
+            }
+        }
+        return columns;
+    }
+
+    public Map<String, String> getColumnAliasMapping() {
+        return physicalPlan.getColumnAliasMapping();
+    }
+
+    /**
+     * Returns the row limit of the query, or -1 when it has no limit clause.
+     */
+    public int getLimit() {
+        if (!logicalPlan.getQuery().hasChildType(LimitClause.class)) {
+            return -1;
+        }
+        String limitValue = logicalPlan.getQuery().getChildType(LimitClause.class, 0)
+                .getChildType(IdentifierNode.class, 0).getValue();
+        int limit;
+        try {
+            limit = Integer.parseInt(limitValue);
+        } catch (NumberFormatException e) {
+            throw new BlkchnException("Invalid limit value " + limitValue, e);
+        }
+        if (limit < 0) {
+            throw new BlkchnException("limit value should not be less than zero");
+        }
+        return limit;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     protected DataNode<?> getDataNode(String table, String column, String value) {
@@ -191,13 +571,13 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
             Block block = null;
             if (column.equals(EthColumns.BLOCKNUMBER)) {
                 try {
-                    block = getBlockByNumber(value);
+                    block = lookupBlockByNumber(value, fullBlockTransactions);
                 } catch (Exception e) {
                     throw new BlkchnException("Error querying block by number " + value, e);
                 }
             } else if (column.equals(EthColumns.HASH)) {
                 try {
-                    block = getBlockByHash(value.replace("'", ""));
+                    block = lookupBlockByHash(value.replace("'", ""), fullBlockTransactions);
                 } catch (Exception e) {
                     throw new BlkchnException("Error querying block by hash " + value.replace("'", ""), e);
                 }
@@ -210,7 +590,7 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
             if (column.equals(EthColumns.HASH)) {
                 Transaction transaction = null;
                 try {
-                    transaction = getTransactionByHash(value.replace("'", ""));
+                    transaction = lookupTransactionByHash(value.replace("'", ""));
                     dataMap.put(transaction.getHash(), transaction);
 
                 } catch (Exception e) {
@@ -221,8 +601,7 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
                 List keys = new ArrayList();
                 try {
 
-                    List<?> txnList = getTransactions(value.replace("'", ""));
-                    for (Transaction txnInfo : (List<Transaction>) txnList) {
+                    for (Transaction txnInfo : getTransactions(value.replace("'", ""))) {
                         dataMap.put(txnInfo.getHash(), txnInfo);
                         keys.add(txnInfo.getHash());
                     }
@@ -240,6 +619,66 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
                     String.format("There is no direct API for table %s and column %s combination", table, column));
     }
 
+    /**
+     * Resolves an OR of hash equalities as a whole, so that all the hashes are looked up with a few batched calls
+     * rather than one call each. Other nodes are resolved one by one.
+     */
+    @Override
+    protected TreeNode executeDirectAPIs(String table, TreeNode node) {
+        List<String> hashes = new ArrayList<>();
+        if (node instanceof LogicalOperation && ((LogicalOperation) node).isOr() && collectHashes(node, hashes)) {
+            return getDataNodeByHashes(table, new ArrayList<>(new LinkedHashSet<>(hashes)));
+        }
+        return super.executeDirectAPIs(table, node);
+    }
+
+    private static boolean collectHashes(TreeNode node, List<String> hashes) {
+        if (node instanceof LogicalOperation) {
+            LogicalOperation oper = (LogicalOperation) node;
+            return oper.isOr() && collectHashes(oper.getChildNode(0), hashes)
+                    && collectHashes(oper.getChildNode(1), hashes);
+        } else if (node instanceof DirectAPINode && EthColumns.HASH.equals(((DirectAPINode) node).getColumn())) {
+            hashes.add(((DirectAPINode) node).getValue().replace("'", ""));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the rows with the given distinct hashes, in the order of the hashes. Hashes which are not found on the
+     * chain give no row.
+     */
+    protected DataNode<?> getDataNodeByHashes(String table, List<String> hashes) {
+        List<String> keys = new ArrayList<>();
+        if (table.equals(EthTables.BLOCK)) {
+            Set<String> seenKeys = new HashSet<>();
+            try {
+                for (Block block : lookupBlocksByHash(hashes, fullBlockTransactions)) {
+                    String key = block.getNumber().toString();
+                    if (seenKeys.add(key)) {
+                        dataMap.put(key, block);
+                        keys.add(key);
+                    }
+                }
+            } catch (Exception e) {
+                throw new BlkchnException("Error querying blocks by hashes " + hashes, e);
+            }
+        } else if (table.equals(EthTables.TRANSACTION)) {
+            try {
+                for (Transaction transaction : lookupTransactionsByHash(hashes)) {
+                    dataMap.put(transaction.getHash(), transaction);
+                    keys.add(transaction.getHash());
+                }
+            } catch (Exception e) {
+                throw new BlkchnException("Error querying transactions by hashes " + hashes, e);
+            }
+        } else {
+            throw new BlkchnException(String.format("There is no direct API for table %s and column %s combination",
+                    table, EthColumns.HASH));
+        }
+        return new DataNode<>(table, keys);
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     protected <T extends Number & Comparable<T>> DataNode<?> executeRangeNode(RangeNode<T> rangeNode) {
         if (rangeNode.getRangeList().getRanges().isEmpty()) {
@@ -249,52 +688,61 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
                 rangeNode.getColumn());
         String rangeCol = rangeNode.getColumn();
         String rangeTable = rangeNode.getTable();
-        BigInteger height;
-        try {
-            height = getBlockHeight();
-        } catch (Exception e) {
-            throw new BlkchnException("Error getting height of ledger", e);
-        }
         List<DataNode<String>> dataNodes = rangeNode.getRangeList().getRanges().stream().map(range -> {
 
             List<String> keys = new ArrayList<>();
-            T current = range.getMin().equals(rangeOps.getMinValue()) ? (T) new BigInteger("0") : range.getMin();
-            T max = range.getMax().equals(rangeOps.getMaxValue()) ? (T) rangeOps.subtract((T) height, 1)
-                    : range.getMax();
-            do {
-                if (EthTables.BLOCK.equals(rangeTable) && EthColumns.BLOCKNUMBER.equals(rangeCol)) {
-                    try {
-                        if (dataMap.get(current.toString()) != null) {
-                            keys.add(current.toString());
-                        } else {
-                            Block block = getBlockByNumber(current.toString());
-                            dataMap.put(block.getNumber().toString(), block);
-                            keys.add(current.toString());
-                        }
-                    } catch (Exception e) {
-                        throw new BlkchnException("Error query block by number " + current, e);
-                    }
-                } else if (EthTables.TRANSACTION.equals(rangeTable) && EthColumns.BLOCKNUMBER.equals(rangeCol)) {
-                    try {
+            List<BigInteger> blockNumbers = new ArrayList<>();
+            Range<BigInteger> span = resolveRange(range, rangeOps);
+            if (span != null) {
+                for (BigInteger current = span.getMin(); current.compareTo(span.getMax()) <= 0;
+                        current = current.add(BigInteger.ONE)) {
+                    blockNumbers.add(current);
+                }
+            }
 
-                        if (blkTxnHashMap.containsKey(String.valueOf(current))) {
-                            for (String txnHash : blkTxnHashMap.get(String.valueOf(current)))
-                                keys.add(txnHash);
-
-                        } else {
-                            List<?> txnList = getTransactions(current.toString());
-                            for (Transaction txnInfo : (List<Transaction>) txnList) {
-                                dataMap.put(txnInfo.getHash(), txnInfo);
-                                keys.add(txnInfo.getHash());
-                            }
-                        }
-                    } catch (Exception e) {
-                        throw new BlkchnException("Error query transaction by number " + current, e);
+            if (EthTables.BLOCK.equals(rangeTable) && EthColumns.BLOCKNUMBER.equals(rangeCol)) {
+                List<BigInteger> missingBlocks = blockNumbers.stream()
+                        .filter(blockNumber -> dataMap.get(blockNumber.toString()) == null)
+                        .collect(Collectors.toList());
+                try {
+                    // the blocks come back in the order of their numbers, however the fetch was split
+                    List<Block> blocks = lookupBlocksByNumber(missingBlocks, fullBlockTransactions);
+                    for (int i = 0; i < blocks.size(); i++) {
+                        dataMap.put(missingBlocks.get(i).toString(), blocks.get(i));
+                    }
+                } catch (Exception e) {
+                    throw new BlkchnException("Error query block by number range " + range, e);
+                }
+                for (BigInteger blockNumber : blockNumbers) {
+                    keys.add(blockNumber.toString());
+                }
+            } else if (EthTables.TRANSACTION.equals(rangeTable) && EthColumns.BLOCKNUMBER.equals(rangeCol)) {
+                Map<BigInteger, List<Transaction>> blockTransactions = new HashMap<>();
+                List<BigInteger> missingBlocks = new ArrayList<>();
+                for (BigInteger blockNumber : blockNumbers) {
+                    List<Transaction> transactions = transactionIndex == null ? null
+                            : transactionIndex.getTransactions(blockNumber);
+                    if (transactions == null) {
+                        missingBlocks.add(blockNumber);
+                    } else {
+                        blockTransactions.put(blockNumber, transactions);
                     }
-
                 }
-                current = rangeOps.add(current, 1);
-            } while (max.compareTo(current) >= 0);
+                try {
+                    List<Block> blocks = lookupBlocksByNumber(missingBlocks, true);
+                    for (int i = 0; i < blocks.size(); i++) {
+                        blockTransactions.put(missingBlocks.get(i), toTransactions(blocks.get(i)));
+                    }
+                } catch (Exception e) {
+                    throw new BlkchnException("Error query transaction by number range " + range, e);
+                }
+                for (BigInteger blockNumber : blockNumbers) {
+                    for (Transaction txnInfo : blockTransactions.get(blockNumber)) {
+                        dataMap.put(txnInfo.getHash(), txnInfo);
+                        keys.add(txnInfo.getHash());
+                    }
+                }
+            }
 
             return new DataNode<String>(rangeTable, keys);
         }).collect(Collectors.toList());
@@ -306,6 +754,177 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         }
         return (DataNode<String>) finalDataNode;
     }
+
+    /**
+     * Decodes the rows of a scan over block numbers straight from the raw responses of the node into columns,
+     * without binding web3j blocks. The where clause may add an equality filter on the sender of a transaction, which
+     * is then run on the address codes. Returns null when the scan needs the blocks: the where clause is more than
+     * that, blocks go through the connection cache, the local store or the transaction index, the transactions
+     * column is referred to, or the node doesn't take batch requests.
+     */
+    private DataFrame scanColumns(TreeNode tree) {
+        if (!columnarDecode || blockCache != null || blockStore != null || !(web3jService instanceof BatchService)
+                || !((BatchService) web3jService).isBatchSupported()) {
+            return null;
+        }
+        FilterItem filter = null;
+        if (tree instanceof LogicalOperation && ((LogicalOperation) tree).isAnd()
+                && tree.getChildNodes().size() == 2) {
+            TreeNode left = tree.getChildNode(0);
+            TreeNode right = tree.getChildNode(1);
+            filter = (FilterItem) (left instanceof FilterItem ? left : right instanceof FilterItem ? right : null);
+            if (filter == null) {
+                return null;
+            }
+            tree = filter == left ? right : left;
+        }
+        if (!(tree instanceof RangeNode)) {
+            return null;
+        }
+        RangeNode<?> rangeNode = (RangeNode<?>) tree;
+        String table = rangeNode.getTable();
+        boolean transactionRows = EthTables.TRANSACTION.equals(table);
+        // a connection with a transaction index scans transactions as objects, so the index is filled by the scans
+        if (!EthColumns.BLOCKNUMBER.equals(rangeNode.getColumn()) || (transactionRows && transactionIndex != null)) {
+            return null;
+        }
+        List<String> columns = ((EthPhysicalPlan) physicalPlan).getReferencedColumns(table);
+        if (columns == null || !columns.stream().allMatch(column -> BlockColumnDecoder.isDecodable(table, column))) {
+            return null;
+        }
+        int filterColumn = filter == null ? -1 : columns.indexOf(EthColumns.FROM);
+        Comparator comparator = filter == null ? null : filter.getChildType(Comparator.class, 0);
+        if (filter != null && (!transactionRows || filterColumn < 0 || !(comparator.isEQ() || comparator.isNEQ())
+                || !EthColumns.FROM.equals(filter.getChildType(Column.class, 0).getChildType(IdentifierNode.class, 0)
+                        .getValue()))) {
+            return null;
+        }
+        List<BigInteger> blockNumbers = new ArrayList<>();
+        for (Range<BigInteger> span : resolveRanges(collectBlockRanges(rangeNode))) {
+            for (BigInteger current = span.getMin(); current.compareTo(span.getMax()) <= 0;
+                    current = current.add(BigInteger.ONE)) {
+                blockNumbers.add(current);
+            }
+        }
+        if (blockNumbers.isEmpty()) {
+            return new DataFrame(new ArrayList<>(), new ArrayList<>(), physicalPlan.getColumnAliasMapping());
+        }
+        List<List<BigInteger>> batches = new ArrayList<>();
+        for (int i = 0; i < blockNumbers.size(); i += Math.max(batchSize, 1)) {
+            batches.add(blockNumbers.subList(i, Math.min(i + Math.max(batchSize, 1), blockNumbers.size())));
+        }
+        // the batches of the scan share one dictionary, so they are appended and filtered on address codes
+        BlockColumnDecoder decoder = new BlockColumnDecoder(table, columns, new AddressDictionary(Integer.MAX_VALUE));
+        ColumnBatch rows;
+        try {
+            List<ColumnBatch> parts = decodeAll(batches, decoder, transactionRows);
+            rows = parts.get(0);
+            for (ColumnBatch part : parts.subList(1, parts.size())) {
+                rows.append(part);
+            }
+        } catch (BatchNotSupportedException e) {
+            LOGGER.warn(e.getMessage() + ", decoding blocks through web3j");
+            return null;
+        } catch (IOException e) {
+            throw new BlkchnException("Error query block by number range " + blockNumbers.get(0) + " to "
+                    + blockNumbers.get(blockNumbers.size() - 1), e);
+        }
+        if (filter != null) {
+            rows = filterAddress(rows, filterColumn,
+                    filter.getChildType(IdentifierNode.class, 0).getValue().replaceAll("'", ""), comparator.isEQ());
+        }
+        if (rows.getRowCount() == 0) {
+            return new DataFrame(new ArrayList<>(), new ArrayList<>(), physicalPlan.getColumnAliasMapping());
+        }
+        return new DataFrame(rows.asRows(), columns, physicalPlan.getColumnAliasMapping());
+    }
+
+    /**
+     * Keeps the rows whose address equals, or doesn't equal, the value. Addresses are compared by their dictionary
+     * codes, only the addresses the dictionary doesn't code are compared as strings.
+     */
+    private static ColumnBatch filterAddress(ColumnBatch rows, int column, String value, boolean equal) {
+        int code = rows.getDictionary(column).lookup(value);
+        int[] selected = new int[rows.getRowCount()];
+        int count = 0;
+        for (int row = 0; row < rows.getRowCount(); row++) {
+            int rowCode = rows.getCode(row, column);
+            boolean match = rowCode != AddressDictionary.NO_CODE ? rowCode == code
+                    : value.equals(rows.get(row, column));
+            if (match == equal) {
+                selected[count++] = row;
+            }
+        }
+        return rows.reorder(Arrays.copyOf(selected, count));
+    }
+
+    /**
+     * Decodes the batches of blocks in parallel on the fetch pool, or one after another. The parts are returned in
+     * batch order.
+     */
+    private List<ColumnBatch> decodeAll(List<List<BigInteger>> batches, BlockColumnDecoder decoder,
+            boolean fullTransactionObjects) throws IOException {
+        if (fetchPool == null || batches.size() <= 1) {
+            List<ColumnBatch> parts = new ArrayList<>(batches.size());
+            for (List<BigInteger> batch : batches) {
+                parts.add(decodeBlocks(batch, decoder, fullTransactionObjects));
+            }
+            return parts;
+        }
+        try {
+            return fetchPool.submit(() -> batches.parallelStream().map(batch -> {
+                try {
+                    return decodeBlocks(batch, decoder, fullTransactionObjects);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for blocks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private ColumnBatch decodeBlocks(List<BigInteger> blockNumbers, BlockColumnDecoder decoder,
+            boolean fullTransactionObjects) throws IOException {
+        LOGGER.info("Decoding blocks " + blockNumbers.get(0) + " to " + blockNumbers.get(blockNumbers.size() - 1)
+                + " in one batch");
+        List<Request<?, EthBlock>> requests = new ArrayList<>(blockNumbers.size());
+        for (BigInteger blockNumber : blockNumbers) {
+            requests.add(web3jClient.ethGetBlockByNumber(DefaultBlockParameter.valueOf(blockNumber),
+                    fullTransactionObjects));
+        }
+        return ((BatchService) web3jService).readBatch(requests, decoder);
+    }
+
+    /**
+     * Resolves a block number range to concrete bounds, open ends become the genesis block and the latest block.
+     * When a window scan is running the range is clipped to the window. Returns null for an empty range.
+     */
+    private <T extends Number & Comparable<T>> Range<BigInteger> resolveRange(Range<T> range,
+            RangeOperations<T> rangeOps) {
+        BigInteger min = range.getMin().equals(rangeOps.getMinValue()) ? BigInteger.ZERO
+                : new BigInteger(range.getMin().toString());
+        BigInteger max = range.getMax().equals(rangeOps.getMaxValue()) ? null
+                : new BigInteger(range.getMax().toString());
+        if (scanWindow != null) {
+            min = min.max(scanWindow.getMin());
+            max = max == null ? scanWindow.getMax() : max.min(scanWindow.getMax());
+        }
+        if (max == null) {
+            try {
+                max = getBlockHeight().subtract(BigInteger.ONE);
+            } catch (Exception e) {
+                throw new BlkchnException("Error getting height of ledger", e);
+            }
+        }
+        return min.compareTo(max) > 0 ? null : new Range<>(min, max);
+    }
     
     
     @Override
@@ -461,24 +1080,372 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         return new DataNode<>(dataNode.getTable(), filteredKeys);
     }
 
-    private List<TransactionResult> getTransactions(String blockNumber) throws IOException {
+    private List<Transaction> getTransactions(String blockNumber) throws IOException {
         LOGGER.info("Getting details of transactions stored in block - " + blockNumber);
-        EthBlock block = web3jClient
-                .ethGetBlockByNumber(DefaultBlockParameter.valueOf(new BigInteger(blockNumber)), true).send();
+        List<Transaction> transactions = transactionIndex == null ? null
+                : transactionIndex.getTransactions(new BigInteger(blockNumber));
+        return transactions != null ? transactions : toTransactions(lookupBlockByNumber(blockNumber, true));
+    }
+
+    private static List<Transaction> toTransactions(Block block) {
+        List<Transaction> transactions = new ArrayList<>(block.getTransactions().size());
+        for (TransactionResult<?> txnResult : block.getTransactions()) {
+            transactions.add((Transaction) txnResult.get());
+        }
+        return transactions;
+    }
+
+    private Block lookupBlockByNumber(String blockNumber, boolean fullTransactionObjects) throws IOException {
+        return lookupBlocksByNumber(Arrays.asList(new BigInteger(blockNumber)), fullTransactionObjects).get(0);
+    }
+
+    private Block lookupBlockByHash(String blockHash, boolean fullTransactionObjects) throws IOException {
+        Block block = blockCache == null ? null : blockCache.getBlockByHash(blockHash, fullTransactionObjects);
+        if (block == null) {
+            block = getBlockByHash(blockHash, fullTransactionObjects);
+            remember(block, fullTransactionObjects);
+        }
+        return block;
+    }
+
+    private Transaction lookupTransactionByHash(String transactionHash) throws IOException {
+        Transaction transaction = findTransaction(transactionHash);
+        if (transaction == null) {
+            transaction = getTransactionByHash(transactionHash);
+            rememberTransaction(transaction);
+        }
+        return transaction;
+    }
+
+    /**
+     * Returns the transactions with the given hashes which exist, in the order of the hashes. Transactions not known
+     * locally are fetched from the node together.
+     */
+    private List<Transaction> lookupTransactionsByHash(List<String> transactionHashes) throws IOException {
+        Transaction[] transactions = new Transaction[transactionHashes.size()];
+        List<Request<?, EthTransaction>> requests = new ArrayList<>();
+        List<Integer> missingIndices = new ArrayList<>();
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = findTransaction(transactionHashes.get(i));
+            if (transactions[i] == null) {
+                requests.add(web3jClient.ethGetTransactionByHash(transactionHashes.get(i)));
+                missingIndices.add(i);
+            }
+        }
+        if (!requests.isEmpty()) {
+            LOGGER.info("Getting information of " + requests.size() + " transactions by hash");
+            List<EthTransaction> responses = sendAll(requests, EthTransaction.class);
+            for (int i = 0; i < responses.size(); i++) {
+                transactions[missingIndices.get(i)] = responses.get(i).getResult();
+                rememberTransaction(responses.get(i).getResult());
+            }
+        }
+        return Arrays.stream(transactions).filter(transaction -> transaction != null).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the blocks with the given hashes which exist, in the order of the hashes. Blocks not in the connection
+     * cache are fetched from the node together.
+     */
+    private List<Block> lookupBlocksByHash(List<String> blockHashes, boolean fullTransactionObjects)
+            throws IOException {
+        Block[] blocks = new Block[blockHashes.size()];
+        List<Request<?, EthBlock>> requests = new ArrayList<>();
+        List<Integer> missingIndices = new ArrayList<>();
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = blockCache == null ? null
+                    : blockCache.getBlockByHash(blockHashes.get(i), fullTransactionObjects);
+            if (blocks[i] == null) {
+                requests.add(web3jClient.ethGetBlockByHash(blockHashes.get(i), fullTransactionObjects));
+                missingIndices.add(i);
+            }
+        }
+        if (!requests.isEmpty()) {
+            LOGGER.info("Getting information of " + requests.size() + " blocks by hash");
+            List<EthBlock> responses = sendAll(requests, EthBlock.class);
+            for (int i = 0; i < responses.size(); i++) {
+                blocks[missingIndices.get(i)] = responses.get(i).getBlock();
+                remember(responses.get(i).getBlock(), fullTransactionObjects);
+            }
+        }
+        return Arrays.stream(blocks).filter(block -> block != null).collect(Collectors.toList());
+    }
+
+    private Transaction findTransaction(String transactionHash) throws IOException {
+        Transaction transaction = blockCache == null ? null : blockCache.getTransaction(transactionHash);
+        if (transaction == null && transactionIndex != null) {
+            transaction = transactionIndex.getTransaction(transactionHash);
+        }
+        if (transaction == null && blockStore != null) {
+            transaction = blockStore.getTransaction(transactionHash);
+        }
+        return transaction;
+    }
+
+    private void rememberTransaction(Transaction transaction) throws IOException {
+        if (blockCache != null && transaction != null) {
+            // reading the head through the tracker also advances it in the cache, which then tells the confirmed blocks
+            BigInteger confirmedHeight = getFinalizedHeight();
+            if (transaction.getBlockNumberRaw() == null || transaction.getBlockNumber().compareTo(confirmedHeight) > 0) {
+                return;
+            }
+            canonicalize(transaction);
+            blockCache.putTransaction(transaction);
+        }
+    }
+
+    /**
+     * Returns the blocks in the order of the given numbers. Blocks are taken from the connection cache, then from
+     * the local block store, and only the others are fetched from the node.
+     */
+    private List<Block> lookupBlocksByNumber(List<BigInteger> blockNumbers, boolean fullTransactionObjects)
+            throws IOException {
+        if (blockCache == null && blockStore == null && transactionIndex == null) {
+            return getBlocksByNumber(blockNumbers, fullTransactionObjects);
+        }
+        Block[] blocks = new Block[blockNumbers.size()];
+        List<BigInteger> missingBlocks = new ArrayList<>();
+        List<Integer> missingIndices = new ArrayList<>();
+        for (int i = 0; i < blocks.length; i++) {
+            if (blockCache != null) {
+                blocks[i] = blockCache.getBlock(blockNumbers.get(i), fullTransactionObjects);
+            }
+            if (blocks[i] == null && blockStore != null) {
+                blocks[i] = blockStore.getBlock(blockNumbers.get(i), fullTransactionObjects);
+                canonicalize(blocks[i]);
+                if (blocks[i] != null && blockCache != null) {
+                    blockCache.putBlock(blocks[i]);
+                }
+                if (blocks[i] != null && transactionIndex != null) {
+                    transactionIndex.putBlock(blocks[i]);
+                }
+            }
+            if (blocks[i] == null) {
+                missingBlocks.add(blockNumbers.get(i));
+                missingIndices.add(i);
+            }
+        }
+        if (!missingBlocks.isEmpty()) {
+            List<Block> fetchedBlocks = getBlocksByNumber(missingBlocks, fullTransactionObjects);
+            for (int i = 0; i < fetchedBlocks.size(); i++) {
+                blocks[missingIndices.get(i)] = fetchedBlocks.get(i);
+                remember(fetchedBlocks.get(i), fullTransactionObjects);
+            }
+        }
+        return Arrays.asList(blocks);
+    }
+
+    /**
+     * Keeps a block fetched from the node in the connection cache, and in the transaction index and the local block
+     * store once it is confirmed deeply enough not to be reorganised. The chain head is read first, so the cache can
+     * tell the blocks which may still be reorganised.
+     */
+    private void remember(Block block, boolean fullTransactionObjects) throws IOException {
+        if (block == null || (blockCache == null && blockStore == null && transactionIndex == null)) {
+            return;
+        }
+        BigInteger confirmedHeight = getFinalizedHeight();
+        canonicalize(block);
+        if (blockCache != null) {
+            blockCache.putBlock(block);
+        }
+        if (block.getNumber().compareTo(confirmedHeight) > 0) {
+            return;
+        }
+        if (transactionIndex != null && fullTransactionObjects) {
+            transactionIndex.putBlock(block);
+        }
+        if (blockStore != null) {
+            blockStore.putBlock(block, fullTransactionObjects);
+        }
+    }
 
-        return block.getBlock().getTransactions();
+    /**
+     * Replaces the addresses of a block kept by the connection with their canonical strings, so the blocks and
+     * transactions held for the connection share one string per address.
+     */
+    private void canonicalize(Block block) {
+        if (block == null || addressDictionary == null) {
+            return;
+        }
+        block.setMiner(addressDictionary.canonical(block.getMiner()));
+        if (block.getTransactions() != null) {
+            for (TransactionResult<?> result : block.getTransactions()) {
+                if (result instanceof TransactionObject) {
+                    canonicalize((TransactionObject) result);
+                }
+            }
+        }
     }
 
-    private Block getBlockByNumber(String blockNumber) throws IOException {
+    private void canonicalize(Transaction transaction) {
+        if (addressDictionary == null) {
+            return;
+        }
+        transaction.setFrom(addressDictionary.canonical(transaction.getFrom()));
+        transaction.setTo(addressDictionary.canonical(transaction.getTo()));
+        transaction.setCreates(addressDictionary.canonical(transaction.getCreates()));
+    }
+
+    /**
+     * Returns the height of the last block deep enough not to be reorganised. It is read from the head tracked by the
+     * connection on every call, so a long scan follows the head as it moves.
+     */
+    private BigInteger getFinalizedHeight() throws IOException {
+        return getBlockHeight().subtract(BigInteger.valueOf(confirmationDepth));
+    }
+
+    private Block getBlockByNumber(String blockNumber, boolean fullTransactionObjects) throws IOException {
         LOGGER.info("Getting block - " + blockNumber + " Information ");
-        EthBlock block = web3jClient
-                .ethGetBlockByNumber(DefaultBlockParameter.valueOf(new BigInteger(blockNumber)), true).send();
-        return block.getBlock();
+        EthBlock block = web3jClient.ethGetBlockByNumber(DefaultBlockParameter.valueOf(new BigInteger(blockNumber)),
+                fullTransactionObjects).send();
+        return checkBlock(blockNumber, block);
+    }
+
+    /**
+     * Returns the block of a response, failing with its number when the node answered with an error or without a
+     * block, as it does for a block above the chain head.
+     */
+    private static Block checkBlock(Object blockNumber, EthBlock response) {
+        if (response.hasError()) {
+            throw new BlkchnException("Error getting block " + blockNumber + ": " + response.getError().getMessage());
+        }
+        if (response.getBlock() == null) {
+            throw new BlkchnException("Block " + blockNumber + " not found");
+        }
+        return response.getBlock();
+    }
+
+    private List<Block> getBlocksByNumber(List<BigInteger> blockNumbers, boolean fullTransactionObjects)
+            throws IOException {
+        if (fetchPool == null || blockNumbers.size() <= Math.max(batchSize, 1)) {
+            return fetchBlocks(blockNumbers, fullTransactionObjects);
+        }
+        try {
+            return fetchPool.invoke(new BlockFetchTask(blockNumbers, fullTransactionObjects));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Block> fetchBlocks(List<BigInteger> blockNumbers, boolean fullTransactionObjects)
+            throws IOException {
+        List<Block> blocks = new ArrayList<>(blockNumbers.size());
+        int fetched = 0;
+        if (batchSize > 1 && web3jService instanceof BatchService && ((BatchService) web3jService).isBatchSupported()) {
+            BatchService batchService = (BatchService) web3jService;
+            try {
+                while (fetched < blockNumbers.size()) {
+                    List<BigInteger> batch = blockNumbers.subList(fetched,
+                            Math.min(fetched + batchSize, blockNumbers.size()));
+                    LOGGER.info("Getting blocks " + batch.get(0) + " to " + batch.get(batch.size() - 1)
+                            + " in one batch");
+                    List<Request<?, EthBlock>> requests = new ArrayList<>(batch.size());
+                    for (BigInteger blockNumber : batch) {
+                        requests.add(web3jClient.ethGetBlockByNumber(DefaultBlockParameter.valueOf(blockNumber),
+                                fullTransactionObjects));
+                    }
+                    List<EthBlock> responses = batchService.sendBatch(requests, EthBlock.class);
+                    for (int i = 0; i < responses.size(); i++) {
+                        blocks.add(checkBlock(batch.get(i), responses.get(i)));
+                    }
+                    fetched += batch.size();
+                }
+            } catch (BatchNotSupportedException e) {
+                LOGGER.warn(e.getMessage() + ", getting remaining blocks one at a time");
+            }
+        }
+        for (; fetched < blockNumbers.size(); fetched++) {
+            blocks.add(getBlockByNumber(blockNumbers.get(fetched).toString(), fullTransactionObjects));
+        }
+        return blocks;
+    }
+
+    /**
+     * Sends the requests in batches when the node takes them, otherwise in parallel on the fetch pool or one after
+     * another. The responses are returned in request order.
+     */
+    private <T extends Response> List<T> sendAll(List<Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        List<T> responses = new ArrayList<>(requests.size());
+        if (batchSize > 1 && web3jService instanceof BatchService && ((BatchService) web3jService).isBatchSupported()) {
+            BatchService batchService = (BatchService) web3jService;
+            try {
+                while (responses.size() < requests.size()) {
+                    responses.addAll(batchService.sendBatch(requests.subList(responses.size(),
+                            Math.min(responses.size() + batchSize, requests.size())), responseType));
+                }
+            } catch (BatchNotSupportedException e) {
+                LOGGER.warn(e.getMessage() + ", sending remaining requests one at a time");
+            }
+        }
+        List<Request<?, T>> remaining = requests.subList(responses.size(), requests.size());
+        if (fetchPool != null && remaining.size() > 1) {
+            try {
+                responses.addAll(fetchPool.submit(() -> remaining.parallelStream().map(request -> {
+                    try {
+                        return request.send();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList())).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for responses");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        } else {
+            for (Request<?, T> request : remaining) {
+                responses.add(request.send());
+            }
+        }
+        return responses;
     }
 
-    private Block getBlockByHash(String blockHash) throws IOException {
+    /**
+     * Splits a list of block numbers in halves until a part fits in one batch, so idle workers can steal the
+     * pending halves while others are busy with transaction heavy blocks. Parts are joined back in block order.
+     */
+    private class BlockFetchTask extends RecursiveTask<List<Block>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<BigInteger> blockNumbers;
+
+        private final boolean fullTransactionObjects;
+
+        BlockFetchTask(List<BigInteger> blockNumbers, boolean fullTransactionObjects) {
+            this.blockNumbers = blockNumbers;
+            this.fullTransactionObjects = fullTransactionObjects;
+        }
+
+        @Override
+        protected List<Block> compute() {
+            if (blockNumbers.size() <= Math.max(batchSize, 1)) {
+                try {
+                    return fetchBlocks(blockNumbers, fullTransactionObjects);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = blockNumbers.size() / 2;
+            BlockFetchTask left = new BlockFetchTask(blockNumbers.subList(0, middle), fullTransactionObjects);
+            BlockFetchTask right = new BlockFetchTask(blockNumbers.subList(middle, blockNumbers.size()),
+                    fullTransactionObjects);
+            left.fork();
+            List<Block> blocks = new ArrayList<>(right.compute());
+            blocks.addAll(0, left.join());
+            return blocks;
+        }
+    }
+
+    private Block getBlockByHash(String blockHash, boolean fullTransactionObjects) throws IOException {
         LOGGER.info("Getting  information of block with hash - " + blockHash);
-        EthBlock block = web3jClient.ethGetBlockByHash(blockHash, true).send();
+        EthBlock block = web3jClient.ethGetBlockByHash(blockHash, fullTransactionObjects).send();
         return block.getBlock();
     }
 
@@ -498,7 +1465,13 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         return transaction;
     }
 
+    /**
+     * Returns the number of the chain head, as tracked by the connection when there is one.
+     */
     private BigInteger getBlockHeight() throws IOException {
+        if (headTracker != null) {
+            return headTracker.getHeight();
+        }
         LOGGER.info("Getting block height ");
         EthBlockNumber block = web3jClient.ethBlockNumber().send();
         return block.getBlockNumber();
@@ -551,64 +1524,28 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
         DataFrame df = null;
         List<List<Object>> data = new ArrayList<>();
         if (dataMap.get(dataNode.getKeys().get(0).toString()) instanceof Block) {
-            String[] columns = { EthColumns.BLOCKNUMBER, EthColumns.HASH, EthColumns.PARENTHASH, EthColumns.NONCE, EthColumns.SHA3UNCLES, EthColumns.LOGSBLOOM,
-                    EthColumns.TRANSACTIONSROOT, EthColumns.STATEROOT, EthColumns.RECEIPTSROOT, EthColumns.AUTHOR, EthColumns.MINER, EthColumns.MIXHASH, EthColumns.TOTALDIFFICULTY,
-                    EthColumns.EXTRADATA, EthColumns.SIZE, EthColumns.GASLIMIT, EthColumns.GASUSED, EthColumns.TIMESTAMP, EthColumns.TRANSACTIONS, EthColumns.UNCLES, EthColumns.SEALFIELDS };
-
+            // only the columns the query refers to are built
+            List<String> columns = ((EthPhysicalPlan) physicalPlan).getReferencedColumns(EthTables.BLOCK);
             for (Object key : dataNode.getKeys()) {
                 Block blockInfo = (Block) dataMap.get(key.toString());
-                BigInteger blocknumber = blockInfo.getNumber();
-                String hash = blockInfo.getHash();
-                String parenthash = blockInfo.getParentHash();
-                BigInteger nonce = blockInfo.getNonce();
-                String sha3uncles = blockInfo.getSha3Uncles();
-                String logsbloom = blockInfo.getLogsBloom();
-                String transactionsroot = blockInfo.getTransactionsRoot();
-                String stateroot = blockInfo.getStateRoot();
-                String receiptsroot = blockInfo.getReceiptsRoot();
-                String author = blockInfo.getAuthor();
-                String miner = blockInfo.getMiner();
-                String mixhash = blockInfo.getMixHash();
-                BigInteger totaldifficulty = blockInfo.getTotalDifficulty();
-                String extradata = blockInfo.getExtraData();
-                BigInteger size = blockInfo.getSize();
-                BigInteger gaslimit = blockInfo.getGasLimit();
-                BigInteger gasused = blockInfo.getGasUsed();
-                BigInteger timestamp = blockInfo.getTimestamp();
-                List<TransactionResult> transactions = blockInfo.getTransactions();
-                List<String> uncles = blockInfo.getUncles();
-                List<String> sealfields = blockInfo.getSealFields();
-                data.add(Arrays.asList(blocknumber, hash, parenthash, nonce, sha3uncles, logsbloom, transactionsroot,
-                        stateroot, receiptsroot, author, miner, mixhash, totaldifficulty, extradata, size, gaslimit,
-                        gasused, timestamp, transactions, uncles, sealfields));
+                List<Object> row = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    row.add(getBlockColumn(blockInfo, column));
+                }
+                data.add(row);
             }
             df = new DataFrame(data, columns, physicalPlan.getColumnAliasMapping());
             df.setRawData(dataMap.values());
             return df;
         } else if (dataMap.get(dataNode.getKeys().get(0).toString()) instanceof Transaction) {
-            String columns[] = { EthColumns.BLOCKHASH, EthColumns.BLOCKNUMBER, EthColumns.CREATES, EthColumns.FROM, EthColumns.GAS, EthColumns.GASPRICE, EthColumns.HASH, EthColumns.INPUT,
-                    EthColumns.NONCE, EthColumns.PUBLICKEY, EthColumns.R, EthColumns.RAW, EthColumns.S, EthColumns.TO, EthColumns.TRANSACTIONINDEX, EthColumns.V, EthColumns.VALUE };
+            List<String> columns = ((EthPhysicalPlan) physicalPlan).getReferencedColumns(EthTables.TRANSACTION);
             for (Object key : dataNode.getKeys()) {
                 Transaction txnInfo = (Transaction) dataMap.get(key.toString());
-                String blockhash = txnInfo.getBlockHash();
-                BigInteger blocknumber = txnInfo.getBlockNumber();
-                String creates = txnInfo.getCreates();
-                String from = txnInfo.getFrom();
-                String gas = txnInfo.getGas().toString();
-                BigInteger gasprice = txnInfo.getGasPrice();
-                String hash = txnInfo.getHash();
-                String input = txnInfo.getInput();
-                BigInteger nonce = txnInfo.getNonce();
-                String publickey = txnInfo.getPublicKey();
-                String r = txnInfo.getR();
-                String raw = txnInfo.getRaw();
-                String s = txnInfo.getS();
-                String to = txnInfo.getTo();
-                BigInteger transactionindex = txnInfo.getTransactionIndex();
-                String v = String.valueOf(txnInfo.getV());
-                BigInteger value = txnInfo.getValue();
-                data.add(Arrays.asList(blockhash, blocknumber, creates, from, gas, gasprice, hash, input, nonce,
-                        publickey, r, raw, s, to, transactionindex, v, value));
+                List<Object> row = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    row.add(getTransactionColumn(txnInfo, column));
+                }
+                data.add(row);
             }
             df = new DataFrame(data, columns, physicalPlan.getColumnAliasMapping());
             df.setRawData(dataMap.values());
@@ -617,6 +1554,96 @@ public class EthQueryExecutor extends AbstractQueryExecutor {
             throw new BlkchnException("Cannot create dataframe from unknown object type");
     }
 
+    private static Object getBlockColumn(Block blockInfo, String column) {
+        switch (column) {
+            case EthColumns.BLOCKNUMBER:
+                return blockInfo.getNumber();
+            case EthColumns.HASH:
+                return blockInfo.getHash();
+            case EthColumns.PARENTHASH:
+                return blockInfo.getParentHash();
+            case EthColumns.NONCE:
+                return blockInfo.getNonce();
+            case EthColumns.SHA3UNCLES:
+                return blockInfo.getSha3Uncles();
+            case EthColumns.LOGSBLOOM:
+                return blockInfo.getLogsBloom();
+            case EthColumns.TRANSACTIONSROOT:
+                return blockInfo.getTransactionsRoot();
+            case EthColumns.STATEROOT:
+                return blockInfo.getStateRoot();
+            case EthColumns.RECEIPTSROOT:
+                return blockInfo.getReceiptsRoot();
+            case EthColumns.AUTHOR:
+                return blockInfo.getAuthor();
+            case EthColumns.MINER:
+                return blockInfo.getMiner();
+            case EthColumns.MIXHASH:
+                return blockInfo.getMixHash();
+            case EthColumns.TOTALDIFFICULTY:
+                return blockInfo.getTotalDifficulty();
+            case EthColumns.EXTRADATA:
+                return blockInfo.getExtraData();
+            case EthColumns.SIZE:
+                return blockInfo.getSize();
+            case EthColumns.GASLIMIT:
+                return blockInfo.getGasLimit();
+            case EthColumns.GASUSED:
+                return blockInfo.getGasUsed();
+            case EthColumns.TIMESTAMP:
+                return blockInfo.getTimestamp();
+            case EthColumns.TRANSACTIONS:
+                return blockInfo.getTransactions();
+            case EthColumns.UNCLES:
+                return blockInfo.getUncles();
+            case EthColumns.SEALFIELDS:
+                return blockInfo.getSealFields();
+            default:
+                throw new BlkchnException("Column " + column + " doesn't exist in table " + EthTables.BLOCK);
+        }
+    }
+
+    private static Object getTransactionColumn(Transaction txnInfo, String column) {
+        switch (column) {
+            case EthColumns.BLOCKHASH:
+                return txnInfo.getBlockHash();
+            case EthColumns.BLOCKNUMBER:
+                return txnInfo.getBlockNumber();
+            case EthColumns.CREATES:
+                return txnInfo.getCreates();
+            case EthColumns.FROM:
+                return txnInfo.getFrom();
+            case EthColumns.GAS:
+                return txnInfo.getGas().toString();
+            case EthColumns.GASPRICE:
+                return txnInfo.getGasPrice();
+            case EthColumns.HASH:
+                return txnInfo.getHash();
+            case EthColumns.INPUT:
+                return txnInfo.getInput();
+            case EthColumns.NONCE:
+                return txnInfo.getNonce();
+            case EthColumns.PUBLICKEY:
+                return txnInfo.getPublicKey();
+            case EthColumns.R:
+                return txnInfo.getR();
+            case EthColumns.RAW:
+                return txnInfo.getRaw();
+            case EthColumns.S:
+                return txnInfo.getS();
+            case EthColumns.TO:
+                return txnInfo.getTo();
+            case EthColumns.TRANSACTIONINDEX:
+                return txnInfo.getTransactionIndex();
+            case EthColumns.V:
+                return String.valueOf(txnInfo.getV());
+            case EthColumns.VALUE:
+                return txnInfo.getValue();
+            default:
+                throw new BlkchnException("Column " + column + " doesn't exist in table " + EthTables.TRANSACTION);
+        }
+    }
+
     public Boolean execute() {
         try {
             executeAndReturn();
@@ -0,0 +1,116 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class AdaptiveLimiter. Caps the calls in flight toward one endpoint, the cap growing by one per round of
+ * calls answered in steady time and halving when a call fails, is rate limited or takes much longer than the
+ * quickest recent answers (additive increase, multiplicative decrease). The cap never goes above the ceiling.
+ */
+public class AdaptiveLimiter {
+
+    private static final int INITIAL_LIMIT = 4;
+
+    private static final double BACKOFF_RATIO = 0.5;
+
+    /** Times the baseline latency after which a call is taken as a sign of overload. */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /** Weight with which the baseline follows slower answers, so that it can recover once a node gets slower. */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int ceiling;
+
+    private double limit;
+
+    private int inFlight;
+
+    private double baselineNanos;
+
+    private long lastBackoffNanos;
+
+    public AdaptiveLimiter(int ceiling) {
+        if (ceiling < 1) {
+            throw new IllegalArgumentException("Concurrency ceiling should be at least 1");
+        }
+        this.ceiling = ceiling;
+        this.limit = Math.min(INITIAL_LIMIT, ceiling);
+        this.lastBackoffNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    }
+
+    /**
+     * Waits until a call can be sent within the current limit.
+     */
+    public synchronized void acquire() throws InterruptedIOException {
+        while (inFlight >= (int) limit) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a call slot");
+            }
+        }
+        inFlight++;
+    }
+
+    /**
+     * Gives back the slot of a finished call and adjusts the limit.
+     *
+     * @param latencyNanos
+     *            response time of the call, or a negative value when it can't be compared with other calls
+     * @param dropped
+     *            whether the call failed or was rejected by the node
+     */
+    public synchronized void release(long latencyNanos, boolean dropped) {
+        inFlight--;
+        long now = System.nanoTime();
+        boolean slow = false;
+        if (!dropped && latencyNanos >= 0) {
+            if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+                baselineNanos = latencyNanos;
+            } else {
+                slow = latencyNanos > baselineNanos * LATENCY_TOLERANCE;
+                baselineNanos += (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+            }
+        }
+        if (dropped || slow) {
+            // calls sent before the last backoff report on the old limit, back off once per round trip
+            if (now - lastBackoffNanos > Math.max(latencyNanos, TimeUnit.MILLISECONDS.toNanos(1))) {
+                limit = Math.max(1, limit * BACKOFF_RATIO);
+                lastBackoffNanos = now;
+            }
+        } else if (inFlight + 1 >= (int) limit) {
+            // only grow while the limit is actually in use
+            limit = Math.min(ceiling, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public int getCeiling() {
+        return ceiling;
+    }
+}
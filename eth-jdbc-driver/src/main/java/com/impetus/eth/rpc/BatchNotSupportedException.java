@@ -0,0 +1,30 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the ethereum node does not accept JSON-RPC batch requests.
+ */
+public class BatchNotSupportedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BatchNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,74 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * A {@link Web3jService} that can pack several JSON-RPC calls into a single batch request.
+ */
+public interface BatchService extends Web3jService {
+
+    /**
+     * Sends all the requests as one JSON-RPC batch and returns the responses in request order.
+     * 
+     * @throws BatchNotSupportedException
+     *             if the node rejects batch requests, callers are expected to fall back to single calls
+     */
+    <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException;
+
+    /**
+     * Sends all the requests as one JSON-RPC batch and hands the raw response to the reader, so that it can be
+     * decoded without binding every response to its web3j type. The responses carry ids which grow in request
+     * order, they may come in any order.
+     * 
+     * @throws BatchNotSupportedException
+     *             if the node rejects batch requests or the service can't give out the raw response
+     */
+    default <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        throw new BatchNotSupportedException("Raw batch responses are not supported by " + getClass().getName());
+    }
+
+    boolean isBatchSupported();
+
+    /**
+     * Decodes a raw batch response.
+     */
+    interface ResponseReader<R> {
+
+        /**
+         * @param parser
+         *            parser positioned on the start of the response array
+         */
+        R read(JsonParser parser) throws IOException;
+
+        /**
+         * Joins the results of two consecutive parts of a batch, read when the batch was sent in parts for being too
+         * large for the node.
+         */
+        default R join(R first, R second) throws IOException {
+            throw new BatchTooLargeException("Batch too large, and its parts can't be joined by " + getClass().getName());
+        }
+    }
+}
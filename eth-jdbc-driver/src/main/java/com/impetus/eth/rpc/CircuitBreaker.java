@@ -0,0 +1,101 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class CircuitBreaker. Opens after a number of calls in a row to an endpoint have failed, so that further calls
+ * fail at once instead of waiting on a node which is down. Once the open time has passed a single trial call is let
+ * through, which closes the circuit when it succeeds and opens it again when it fails.
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private int consecutiveFailures;
+
+    private boolean open;
+
+    private boolean trialInFlight;
+
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold should be at least 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * Checks whether a call may be sent, every call let through has to be followed by a success or a failure.
+     */
+    public synchronized void beforeCall() throws CircuitOpenException {
+        if (!open) {
+            return;
+        }
+        if (!trialInFlight && System.nanoTime() - openedAt >= openNanos) {
+            trialInFlight = true;
+            return;
+        }
+        throw new CircuitOpenException("Circuit to " + name + " is open after " + consecutiveFailures
+                + " failed calls");
+    }
+
+    public synchronized void onSuccess() {
+        if (open) {
+            LOGGER.info("Closing circuit to " + name);
+        }
+        consecutiveFailures = 0;
+        open = false;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (trialInFlight || (!open && consecutiveFailures >= failureThreshold)) {
+            if (!open) {
+                LOGGER.warn("Opening circuit to " + name + " after " + consecutiveFailures + " failed calls");
+            }
+            open = true;
+            trialInFlight = false;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Gives back the trial call of a half open circuit when the call was let through but never sent.
+     */
+    synchronized void onCancelled() {
+        trialInFlight = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,377 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.http.HttpService;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The Class EthHttpService. Http transport which, on top of the web3j single call support, can send JSON-RPC
+ * batch requests.
+ */
+public class EthHttpService extends HttpService implements BatchService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EthHttpService.class);
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private static final String APPLICATION_JSON = "application/json; charset=UTF-8";
+
+    private final String url;
+
+    private final CloseableHttpClient httpClient;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private AdaptiveLimiter limiter;
+
+    private CircuitBreaker circuitBreaker;
+
+    private volatile boolean batchSupported = true;
+
+    /** Largest batch the node took after refusing a larger one for its size. */
+    private volatile int maxBatchSize = Integer.MAX_VALUE;
+
+    public EthHttpService(String url) {
+        this(url, HttpClients.custom().setConnectionManagerShared(true).build());
+    }
+
+    public EthHttpService(String url, int maxConnections) {
+        this(url, HttpClients.custom().setConnectionManagerShared(true).setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections).build());
+    }
+
+    public EthHttpService(String url, CloseableHttpClient httpClient) {
+        super(url, httpClient);
+        this.url = url;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Creates a service over its own pool of keep-alive connections, which is shut down when the service is closed.
+     */
+    public EthHttpService(String url, HttpTransportConfig config) {
+        this(url, config.buildConnectionManager(), config);
+    }
+
+    /**
+     * Creates a service over its own pool of connections, whose calls in flight are capped by the given limiter.
+     */
+    public EthHttpService(String url, HttpTransportConfig config, AdaptiveLimiter limiter) {
+        this(url, config, limiter, null);
+    }
+
+    /**
+     * Creates a service over its own pool of connections, guarded by an optional limiter on the calls in flight and
+     * an optional circuit breaker.
+     */
+    public EthHttpService(String url, HttpTransportConfig config, AdaptiveLimiter limiter,
+            CircuitBreaker circuitBreaker) {
+        this(url, config);
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    private EthHttpService(String url, PoolingHttpClientConnectionManager connectionManager,
+            HttpTransportConfig config) {
+        this(url, config.buildClient(connectionManager));
+        this.connectionManager = connectionManager;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (limiter == null && circuitBreaker == null) {
+            return super.send(request, responseType);
+        }
+        return guarded(() -> super.send(request, responseType), true);
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        return inParts(requests, part -> {
+            if (limiter == null && circuitBreaker == null) {
+                return doSendBatch(part, responseType);
+            }
+            // a batch takes longer than a single call depending on its size, only its failures tell of overload
+            return guarded(() -> doSendBatch(part, responseType), false);
+        }, (first, second) -> {
+            List<T> joined = new ArrayList<>(first);
+            joined.addAll(second);
+            return joined;
+        });
+    }
+
+    @Override
+    public <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        return inParts(requests, part -> {
+            if (limiter == null && circuitBreaker == null) {
+                return doReadBatch(part, reader);
+            }
+            return guarded(() -> doReadBatch(part, reader), false);
+        }, reader::join);
+    }
+
+    /**
+     * Sends the batch in parts no larger than the node takes. When the node refuses a batch for its size, the batch
+     * is sent in halves, and later batches in parts of that size.
+     */
+    private <Q, R> R inParts(List<Q> requests, PartCall<Q, R> call, Joiner<R> joiner) throws IOException {
+        int partSize = maxBatchSize;
+        if (requests.size() > partSize) {
+            R result = null;
+            for (int from = 0; from < requests.size(); from += partSize) {
+                R part = inParts(requests.subList(from, Math.min(from + partSize, requests.size())), call, joiner);
+                result = result == null ? part : joiner.join(result, part);
+            }
+            return result;
+        }
+        try {
+            return call.call(requests);
+        } catch (BatchTooLargeException e) {
+            if (requests.size() < 2) {
+                throw e;
+            }
+            synchronized (this) {
+                maxBatchSize = Math.min(maxBatchSize, requests.size() / 2);
+            }
+            LOGGER.info(e.getMessage() + ", sending batches of at most " + maxBatchSize + " requests");
+            return inParts(requests, call, joiner);
+        }
+    }
+
+    private <T> T guarded(Call<T> call, boolean timed) throws IOException {
+        if (circuitBreaker != null) {
+            circuitBreaker.beforeCall();
+        }
+        if (limiter != null) {
+            try {
+                limiter.acquire();
+            } catch (InterruptedIOException e) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onCancelled();
+                }
+                throw e;
+            }
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return call.call();
+        } catch (BatchNotSupportedException | BatchTooLargeException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            long latency = System.nanoTime() - start;
+            if (limiter != null) {
+                limiter.release(timed || dropped ? latency : -1, dropped);
+            }
+            if (circuitBreaker != null) {
+                if (dropped) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+            }
+        }
+    }
+
+    private <T extends Response> List<T> doSendBatch(List<? extends Request<?, T>> requests,
+            Class<T> responseType) throws IOException {
+        if (!batchSupported) {
+            throw new BatchNotSupportedException("Batch requests are not supported by " + url);
+        }
+        List<T> responses = new ArrayList<>(requests.size());
+        if (requests.isEmpty()) {
+            return responses;
+        }
+        // web3j gives every request the same id, ids have to be unique within a batch to match the responses
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setId(i);
+        }
+        JsonNode reply = httpClient.execute(batchPost(requests), response -> {
+            HttpEntity entity = checkBatchResponse(response, requests.size());
+            return entity == null ? null : objectMapper.readTree(entity.getContent());
+        });
+        if (reply == null || !reply.isArray()) {
+            throw nonArrayReply(reply);
+        }
+        Map<Long, T> responseById = new HashMap<>();
+        for (JsonNode node : reply) {
+            T response = objectMapper.treeToValue(node, responseType);
+            responseById.put(response.getId(), response);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            T response = responseById.get((long) i);
+            if (response == null) {
+                throw new IOException("Batch response doesn't contain result for request " + i);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private <R> R doReadBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader)
+            throws IOException {
+        if (!batchSupported) {
+            throw new BatchNotSupportedException("Batch requests are not supported by " + url);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setId(i);
+        }
+        return httpClient.execute(batchPost(requests), response -> {
+            HttpEntity entity = checkBatchResponse(response, requests.size());
+            if (entity == null) {
+                throw batchNotSupported();
+            }
+            // the response is decoded as it streams in, it is never held as a whole
+            try (JsonParser parser = objectMapper.getFactory().createParser(entity.getContent())) {
+                JsonToken token = parser.nextToken();
+                if (token != JsonToken.START_ARRAY) {
+                    throw nonArrayReply(token == JsonToken.START_OBJECT ? objectMapper.readTree(parser) : null);
+                }
+                return reader.read(parser);
+            }
+        });
+    }
+
+    private HttpPost batchPost(List<? extends Request<?, ?>> requests) throws IOException {
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(requests)));
+        httpPost.setHeader(CONTENT_TYPE, APPLICATION_JSON);
+        return httpPost;
+    }
+
+    /**
+     * Returns the entity of a successful batch response. A failed one only tells that the node doesn't take batches
+     * when it carries a JSON-RPC error saying so, other failures such as an expired key are plain errors.
+     */
+    private HttpEntity checkBatchResponse(HttpResponse response, int requestCount) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == 413) {
+            throw new BatchTooLargeException("Batch of " + requestCount + " requests too large for " + url);
+        }
+        if (status < 200 || status >= 300) {
+            if (status != 429 && status < 500 && isBatchRejection(readError(response.getEntity()))) {
+                throw batchNotSupported();
+            }
+            throw new ClientProtocolException("Unexpected response status: " + status);
+        }
+        return response.getEntity();
+    }
+
+    private JsonNode readError(HttpEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(entity.getContent()).get("error");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the error for a batch answered by something else than an array of responses. A JSON-RPC error tells
+     * that the node doesn't take batches only when it is for an invalid request or an unknown method.
+     */
+    private IOException nonArrayReply(JsonNode reply) {
+        JsonNode error = reply == null ? null : reply.get("error");
+        if (error != null && !isBatchRejection(error)) {
+            return new IOException("Batch request to " + url + " failed: " + error.path("message").asText());
+        }
+        return batchNotSupported();
+    }
+
+    private static boolean isBatchRejection(JsonNode error) {
+        if (error == null) {
+            return false;
+        }
+        int code = error.path("code").asInt();
+        return code == -32600 || code == -32601;
+    }
+
+    private BatchNotSupportedException batchNotSupported() {
+        batchSupported = false;
+        LOGGER.warn("Node at " + url + " doesn't support batch requests, falling back to single calls");
+        return new BatchNotSupportedException("Batch requests are not supported by " + url);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+    }
+
+    private interface Call<T> {
+
+        T call() throws IOException;
+    }
+
+    private interface PartCall<Q, R> {
+
+        R call(List<Q> part) throws IOException;
+    }
+
+    private interface Joiner<R> {
+
+        R join(R first, R second) throws IOException;
+    }
+}
@@ -0,0 +1,50 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.ipc.IOFacade;
+import org.web3j.protocol.ipc.IpcService;
+
+/**
+ * The Class EthIpcService. Ipc transport which can be shared by several connections. A response is read from the
+ * socket the request was written to, so calls are sent one at a time, and the socket is closed with the service.
+ */
+public class EthIpcService extends IpcService implements Closeable {
+
+    private final IOFacade ioFacade;
+
+    public EthIpcService(IOFacade ioFacade) {
+        super(ioFacade);
+        this.ioFacade = ioFacade;
+    }
+
+    @Override
+    public synchronized <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        return super.send(request, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ioFacade instanceof Closeable) {
+            ((Closeable) ioFacade).close();
+        }
+    }
+}
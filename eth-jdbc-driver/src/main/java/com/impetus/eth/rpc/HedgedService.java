@@ -0,0 +1,249 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * The Class HedgedService. Sends a read call a second time when the first has not answered within a percentile of
+ * recent response times, and takes whichever answers first. Over a load balanced transport the second call usually
+ * goes to another node, otherwise it goes over another pooled connection. Calls which change state are never sent
+ * twice.
+ */
+public class HedgedService extends Service implements BatchService, Closeable {
+
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList("eth_getBlockByNumber",
+            "eth_getBlockByHash", "eth_getTransactionByHash", "eth_getTransactionByBlockHashAndIndex",
+            "eth_getTransactionByBlockNumberAndIndex", "eth_getTransactionReceipt"));
+
+    private final BatchService delegate;
+
+    private final ExecutorService executor;
+
+    private final LatencyWindow callLatencies;
+
+    private final LatencyWindow batchLatencies;
+
+    private final AtomicLong hedgesSent = new AtomicLong();
+
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * @param percentile
+     *            percentile of recent response times after which a call is hedged
+     * @param minDelayMillis
+     *            shortest wait before a call is hedged
+     */
+    public HedgedService(BatchService delegate, int percentile, long minDelayMillis) {
+        super(false);
+        this.delegate = delegate;
+        this.callLatencies = new LatencyWindow(percentile, minDelayMillis);
+        this.batchLatencies = new LatencyWindow(percentile, minDelayMillis);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "eth-hedged-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (!READ_METHODS.contains(request.getMethod())) {
+            return delegate.send(request, responseType);
+        }
+        return hedge(() -> delegate.send(request, responseType), callLatencies);
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        for (Request<?, T> request : requests) {
+            if (!READ_METHODS.contains(request.getMethod())) {
+                return delegate.sendBatch(requests, responseType);
+            }
+        }
+        return hedge(() -> delegate.sendBatch(requests, responseType), batchLatencies);
+    }
+
+    @Override
+    public <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        for (Request<?, ?> request : requests) {
+            if (!READ_METHODS.contains(request.getMethod())) {
+                return delegate.readBatch(requests, reader);
+            }
+        }
+        return hedge(() -> delegate.readBatch(requests, reader), batchLatencies);
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        return delegate.isBatchSupported();
+    }
+
+    public BatchService getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of calls sent a second time.
+     */
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    /**
+     * Returns the number of calls answered first by the second call.
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private <T> T hedge(Callable<T> call, LatencyWindow latencies) throws IOException {
+        long delayNanos = latencies.getHedgeDelayNanos();
+        long start = System.nanoTime();
+        if (delayNanos < 0) {
+            // not enough response times seen yet to tell a slow call
+            T result = unchecked(call);
+            latencies.record(System.nanoTime() - start);
+            return result;
+        }
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Future<T> primary = completion.submit(call);
+        Future<T> hedged = null;
+        try {
+            Future<T> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                hedgesSent.incrementAndGet();
+                hedged = completion.submit(call);
+                done = completion.take();
+            }
+            if (done == primary) {
+                latencies.record(System.nanoTime() - start);
+            }
+            try {
+                T result = done.get();
+                if (done == hedged) {
+                    hedgesWon.incrementAndGet();
+                }
+                return result;
+            } catch (ExecutionException e) {
+                if (hedged == null) {
+                    throw e;
+                }
+                // the other call may still answer
+                Future<T> other = completion.take();
+                T result = other.get();
+                if (other == hedged) {
+                    hedgesWon.incrementAndGet();
+                }
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedged != null) {
+                hedged.cancel(true);
+            }
+        }
+    }
+
+    private static <T> T unchecked(Callable<T> call) throws IOException {
+        try {
+            return call.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Recent response times, from which the hedging delay is worked out every few calls.
+     */
+    private static class LatencyWindow {
+
+        private static final int SIZE = 1024;
+
+        private static final int MIN_SAMPLES = 32;
+
+        private static final int RECOMPUTE_EVERY = 64;
+
+        private final long[] samples = new long[SIZE];
+
+        private final int percentile;
+
+        private final long minDelayNanos;
+
+        private long count;
+
+        private volatile long delayNanos = -1;
+
+        LatencyWindow(int percentile, long minDelayMillis) {
+            this.percentile = percentile;
+            this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        }
+
+        synchronized void record(long latencyNanos) {
+            samples[(int) (count++ % SIZE)] = latencyNanos;
+            if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == MIN_SAMPLES % RECOMPUTE_EVERY) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SIZE));
+                Arrays.sort(sorted);
+                int index = (int) Math.min(sorted.length - 1, (long) sorted.length * percentile / 100);
+                delayNanos = Math.max(sorted[index], minDelayNanos);
+            }
+        }
+
+        long getHedgeDelayNanos() {
+            return delayNanos;
+        }
+    }
+}
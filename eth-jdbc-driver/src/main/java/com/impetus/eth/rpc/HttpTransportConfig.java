@@ -0,0 +1,168 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+
+/**
+ * Settings of the pooled http transport. Connections are kept alive between calls, responses are asked gzip
+ * compressed, and all clients share one TLS context so that sessions are resumed instead of negotiated again.
+ */
+public class HttpTransportConfig {
+
+    private static final Registry<ConnectionSocketFactory> SOCKET_FACTORIES = RegistryBuilder
+            .<ConnectionSocketFactory> create().register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", SSLConnectionSocketFactory.getSocketFactory()).build();
+
+    /** Pooled connections idle for longer than this are checked before they are used again. */
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final int maxConnections;
+
+    private final int connectTimeoutMillis;
+
+    private final int readTimeoutMillis;
+
+    private final int keepAliveMillis;
+
+    private final boolean compression;
+
+    public HttpTransportConfig(int maxConnections, int connectTimeoutMillis, int readTimeoutMillis,
+            int keepAliveMillis, boolean compression) {
+        this.maxConnections = maxConnections;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.keepAliveMillis = keepAliveMillis;
+        this.compression = compression;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public int getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Builds a pool of connections to be shared by the clients of one endpoint.
+     */
+    public PoolingHttpClientConnectionManager buildConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                SOCKET_FACTORIES);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        return connectionManager;
+    }
+
+    /**
+     * Builds a client over the given connection pool. web3j closes its client after every call, so the pool is
+     * marked shared to outlive the client and keep idle connections; its owner shuts it down.
+     */
+    public CloseableHttpClient buildClient(HttpClientConnectionManager connectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis).setSocketTimeout(readTimeoutMillis).build();
+        HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true).setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy()).disableConnectionState();
+        if (!compression) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Keeps connections for the configured time, or for less when the server announces a shorter timeout.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            HeaderElementIterator elements = new BasicHeaderElementIterator(
+                    response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (elements.hasNext()) {
+                HeaderElement element = elements.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue())),
+                                keepAliveMillis);
+                    } catch (NumberFormatException e) {
+                        break;
+                    }
+                }
+            }
+            return keepAliveMillis;
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int result = maxConnections;
+        result = 31 * result + connectTimeoutMillis;
+        result = 31 * result + readTimeoutMillis;
+        result = 31 * result + keepAliveMillis;
+        return 31 * result + (compression ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HttpTransportConfig)) {
+            return false;
+        }
+        HttpTransportConfig other = (HttpTransportConfig) obj;
+        return maxConnections == other.maxConnections && connectTimeoutMillis == other.connectTimeoutMillis
+                && readTimeoutMillis == other.readTimeoutMillis && keepAliveMillis == other.keepAliveMillis
+                && compression == other.compression;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpTransportConfig[maxConnections=" + maxConnections + ", connectTimeoutMillis="
+                + connectTimeoutMillis + ", readTimeoutMillis=" + readTimeoutMillis + ", keepAliveMillis="
+                + keepAliveMillis + ", compression=" + compression + "]";
+    }
+}
@@ -0,0 +1,343 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.Web3ClientVersion;
+
+/**
+ * The Class LoadBalancedService. Spreads calls over several nodes. Of two nodes picked at random, a call goes to the
+ * one with the lower moving average of response time weighted by its calls in flight, so load follows capacity. A
+ * node is ejected for a while after failing several calls in a row, or when it gets much slower than the fastest
+ * node. With background health checks, a node is checked once its ejection is over and taken back when it answers, its
+ * ejection being extended otherwise. Without them a node is taken back when its ejection is over. A read which fails
+ * on a node is tried on the others.
+ * <p>
+ * Other calls, such as reading a nonce, sending a transaction and polling for its receipt, all go to the first healthy
+ * node and are not tried on another one, so a node which has not seen a pending transaction doesn't hand out its nonce
+ * again and a transaction is not sent twice.
+ */
+public class LoadBalancedService extends Service implements BatchService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancedService.class);
+
+    /** Weight of the latest response time in the moving average. */
+    private static final double EWMA_WEIGHT = 0.3;
+
+    /** Failures in a row after which a node is ejected. */
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /** A node is ejected as slow when its average is this many times the one of the fastest healthy node. */
+    private static final double SLOW_FACTOR = 5;
+
+    /** Responses needed before a node can be judged slow. */
+    private static final int MIN_SAMPLES = 10;
+
+    /** Calls which any node answers alike, so they can be balanced and tried on another node. */
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList("eth_getBlockByNumber",
+            "eth_getBlockByHash", "eth_getTransactionByHash", "eth_getTransactionByBlockHashAndIndex",
+            "eth_getTransactionByBlockNumberAndIndex", "eth_blockNumber", "eth_getBalance", "eth_gasPrice",
+            "net_version", "web3_clientVersion"));
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    private final long ejectionNanos;
+
+    private final ScheduledExecutorService healthChecker;
+
+    public LoadBalancedService(List<EthHttpService> services, long healthCheckMillis, long ejectionMillis) {
+        super(false);
+        if (services.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints to balance");
+        }
+        for (EthHttpService service : services) {
+            endpoints.add(new Endpoint(service));
+        }
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+        if (healthCheckMillis > 0) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "eth-endpoint-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkEjectedEndpoints, healthCheckMillis, healthCheckMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            healthChecker = null;
+        }
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        return call(false, READ_METHODS.contains(request.getMethod()), 1,
+                service -> service.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        return call(true, isRead(requests), Math.max(requests.size(), 1),
+                service -> service.sendBatch(requests, responseType));
+    }
+
+    @Override
+    public <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        return call(true, isRead(requests), Math.max(requests.size(), 1),
+                service -> service.readBatch(requests, reader));
+    }
+
+    private static boolean isRead(List<? extends Request<?, ?>> requests) {
+        for (Request<?, ?> request : requests) {
+            if (!READ_METHODS.contains(request.getMethod())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.service.isBatchSupported()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the urls of the nodes which are currently not ejected.
+     */
+    public List<String> getHealthyEndpoints() {
+        long now = System.nanoTime();
+        List<String> healthy = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now)) {
+                healthy.add(endpoint.service.getUrl());
+            }
+        }
+        return healthy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Endpoint endpoint : endpoints) {
+            endpoint.service.close();
+        }
+    }
+
+    /**
+     * Sends a read to the better of two nodes, trying the others when it fails, and any other call to the first
+     * healthy node only.
+     */
+    private <T> T call(boolean batch, boolean read, int requestCount, Call<T> call) throws IOException {
+        Set<Endpoint> tried = new HashSet<>();
+        IOException failure = null;
+        Endpoint endpoint;
+        while ((read || tried.isEmpty()) && (endpoint = choose(batch, read, tried)) != null) {
+            tried.add(endpoint);
+            long start = System.nanoTime();
+            endpoint.inFlight.incrementAndGet();
+            try {
+                T result = call.apply(endpoint.service);
+                onSuccess(endpoint, (System.nanoTime() - start) / requestCount);
+                return result;
+            } catch (BatchNotSupportedException e) {
+                // the node is fine, it only takes single calls, try the batch on another one
+                LOGGER.info(e.getMessage());
+            } catch (IOException e) {
+                onFailure(endpoint, e);
+                failure = e;
+            } finally {
+                endpoint.inFlight.decrementAndGet();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw batch ? new BatchNotSupportedException("None of the endpoints takes batch requests")
+                : new IOException("No endpoint available");
+    }
+
+    /**
+     * Picks the better of two random healthy nodes not tried yet for a read, the first healthy node otherwise. When
+     * all are ejected the one coming back first is tried anyway, so calls are not failed without trying a node.
+     */
+    private Endpoint choose(boolean batch, boolean read, Set<Endpoint> excluded) {
+        long now = System.nanoTime();
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        Endpoint returning = null;
+        for (Endpoint endpoint : endpoints) {
+            if (excluded.contains(endpoint) || (batch && !endpoint.service.isBatchSupported())) {
+                continue;
+            }
+            if (!endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            } else if (returning == null || endpoint.ejectedUntil < returning.ejectedUntil) {
+                returning = endpoint;
+            }
+        }
+        if (candidates.isEmpty()) {
+            return returning;
+        } else if (candidates.size() == 1 || !read) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint one = candidates.get(first);
+        Endpoint other = candidates.get(second);
+        return one.getScore() <= other.getScore() ? one : other;
+    }
+
+    private void onSuccess(Endpoint endpoint, long latencyNanos) {
+        synchronized (endpoint) {
+            endpoint.ewmaNanos = endpoint.samples == 0 ? latencyNanos
+                    : endpoint.ewmaNanos + EWMA_WEIGHT * (latencyNanos - endpoint.ewmaNanos);
+            endpoint.samples++;
+            endpoint.consecutiveFailures = 0;
+        }
+        if (endpoint.samples < MIN_SAMPLES) {
+            return;
+        }
+        long now = System.nanoTime();
+        double fastest = Double.MAX_VALUE;
+        for (Endpoint other : endpoints) {
+            if (other != endpoint && !other.isEjected(now) && other.samples >= MIN_SAMPLES) {
+                fastest = Math.min(fastest, other.ewmaNanos);
+            }
+        }
+        if (fastest != Double.MAX_VALUE && endpoint.ewmaNanos > SLOW_FACTOR * fastest) {
+            eject(endpoint, "average response time " + TimeUnit.NANOSECONDS.toMillis((long) endpoint.ewmaNanos)
+                    + " ms");
+        }
+    }
+
+    private void onFailure(Endpoint endpoint, IOException e) {
+        LOGGER.warn("Call to " + endpoint.service.getUrl() + " failed: " + e.getMessage());
+        int failures;
+        synchronized (endpoint) {
+            failures = ++endpoint.consecutiveFailures;
+        }
+        if (failures >= MAX_CONSECUTIVE_FAILURES) {
+            eject(endpoint, failures + " failures in a row");
+        }
+    }
+
+    private void eject(Endpoint endpoint, String reason) {
+        synchronized (endpoint) {
+            endpoint.ejectedUntil = System.nanoTime() + ejectionNanos;
+            endpoint.awaitingCheck = healthChecker != null;
+        }
+        LOGGER.warn("Ejecting " + endpoint.service.getUrl() + " for " + TimeUnit.NANOSECONDS.toMillis(ejectionNanos)
+                + " ms, " + reason);
+    }
+
+    /**
+     * Checks the nodes whose ejection is over. A node which answers is taken back, the ejection of the others is
+     * extended.
+     */
+    private void checkEjectedEndpoints() {
+        for (Endpoint endpoint : endpoints) {
+            long start = System.nanoTime();
+            if (!endpoint.awaitingCheck || endpoint.isEjectionRunning(start)) {
+                continue;
+            }
+            try {
+                new Request<>("web3_clientVersion", Collections.<String> emptyList(), 1, endpoint.service,
+                        Web3ClientVersion.class).send();
+                synchronized (endpoint) {
+                    endpoint.ejectedUntil = 0;
+                    endpoint.awaitingCheck = false;
+                    endpoint.consecutiveFailures = 0;
+                    endpoint.samples = 0;
+                    endpoint.ewmaNanos = System.nanoTime() - start;
+                }
+                LOGGER.info("Taking back " + endpoint.service.getUrl());
+            } catch (Exception e) {
+                synchronized (endpoint) {
+                    endpoint.ejectedUntil = System.nanoTime() + ejectionNanos;
+                }
+                LOGGER.debug("Keeping " + endpoint.service.getUrl() + " ejected, health check failed: "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private interface Call<T> {
+
+        T apply(EthHttpService service) throws IOException;
+    }
+
+    private static class Endpoint {
+
+        private final EthHttpService service;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile double ewmaNanos;
+
+        private volatile long samples;
+
+        private volatile long ejectedUntil;
+
+        /** Whether the node stays ejected after its ejection is over, until a health check takes it back. */
+        private volatile boolean awaitingCheck;
+
+        private int consecutiveFailures;
+
+        Endpoint(EthHttpService service) {
+            this.service = service;
+        }
+
+        boolean isEjected(long now) {
+            return awaitingCheck || isEjectionRunning(now);
+        }
+
+        boolean isEjectionRunning(long now) {
+            long until = ejectedUntil;
+            return until != 0 && now - until < 0;
+        }
+
+        double getScore() {
+            return (ewmaNanos + 1) * (inFlight.get() + 1);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The Class MultiplexedService. Base of the transports which send JSON-RPC calls over one stream without waiting for
+ * earlier calls to be answered, every call getting its own id to match it with its answer. Notifications of
+ * subscriptions such as newHeads are handed to their listeners.
+ */
+public abstract class MultiplexedService extends Service implements BatchService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiplexedService.class);
+
+    private static final String SUBSCRIPTION_METHOD = "eth_subscription";
+
+    private final long readTimeoutMillis;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    protected MultiplexedService(long readTimeoutMillis) {
+        super(false);
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Writes one message to the stream, opening it again when it has been dropped.
+     */
+    protected abstract void transmit(byte[] payload) throws IOException;
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        ObjectNode call = objectMapper.valueToTree(request);
+        return objectMapper.treeToValue(call(call), responseType);
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        List<T> responses = new ArrayList<>(requests.size());
+        for (JsonNode reply : callBatch(requests)) {
+            responses.add(objectMapper.treeToValue(reply, responseType));
+        }
+        return responses;
+    }
+
+    @Override
+    public <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        // the replies are already read off the stream as trees by now, the reader walks their tokens
+        ArrayNode replies = objectMapper.createArrayNode().addAll(callBatch(requests));
+        try (JsonParser parser = objectMapper.treeAsTokens(replies)) {
+            parser.nextToken();
+            return reader.read(parser);
+        }
+    }
+
+    private List<JsonNode> callBatch(List<? extends Request<?, ?>> requests) throws IOException {
+        List<JsonNode> replies = new ArrayList<>(requests.size());
+        if (requests.isEmpty()) {
+            return replies;
+        }
+        ArrayNode batch = objectMapper.createArrayNode();
+        long[] ids = new long[requests.size()];
+        List<CompletableFuture<JsonNode>> answers = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ObjectNode call = objectMapper.valueToTree(requests.get(i));
+            ids[i] = nextId.getAndIncrement();
+            call.put("id", ids[i]);
+            answers.add(expect(ids[i]));
+            batch.add(call);
+        }
+        try {
+            transmit(objectMapper.writeValueAsBytes(batch));
+            for (int i = 0; i < ids.length; i++) {
+                replies.add(await(ids[i], answers.get(i)));
+            }
+        } finally {
+            for (long id : ids) {
+                pending.remove(id);
+            }
+        }
+        return replies;
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        return true;
+    }
+
+    /**
+     * Subscribes to notifications of the node, e.g. with the params "newHeads". The listener is called on the
+     * thread reading the stream and should not call the node itself.
+     */
+    public Subscription subscribe(Consumer<JsonNode> listener, Object... params) throws IOException {
+        Subscription subscription = new Subscription(listener, params);
+        subscription.id = subscribeCall(params);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    @Override
+    public void close() throws IOException {
+        subscriptions.clear();
+    }
+
+    /**
+     * Makes the subscriptions again on a stream opened after the previous one was dropped.
+     */
+    protected void resubscribe() throws IOException {
+        for (Subscription subscription : subscriptions) {
+            subscription.id = subscribeCall(subscription.params);
+        }
+    }
+
+    /**
+     * Hands a message read from the stream to the call or the subscription it belongs to.
+     */
+    protected void onMessage(JsonNode message) {
+        if (message.isArray()) {
+            for (JsonNode element : message) {
+                dispatch(element);
+            }
+        } else {
+            dispatch(message);
+        }
+    }
+
+    /**
+     * Fails the calls waiting for an answer on a dropped stream.
+     */
+    protected void onDisconnect(IOException cause) {
+        for (CompletableFuture<JsonNode> answer : pending.values()) {
+            answer.completeExceptionally(cause);
+        }
+    }
+
+    private String subscribeCall(Object[] params) throws IOException {
+        ObjectNode call = objectMapper.createObjectNode();
+        call.put("jsonrpc", "2.0");
+        call.put("method", "eth_subscribe");
+        call.set("params", objectMapper.valueToTree(Arrays.asList(params)));
+        JsonNode reply = call(call);
+        if (reply.hasNonNull("error")) {
+            throw new IOException("Subscription refused: " + reply.get("error").path("message").asText());
+        }
+        return reply.path("result").asText();
+    }
+
+    private void unsubscribe(Subscription subscription) throws IOException {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        ObjectNode call = objectMapper.createObjectNode();
+        call.put("jsonrpc", "2.0");
+        call.put("method", "eth_unsubscribe");
+        call.set("params", objectMapper.createArrayNode().add(subscription.id));
+        call(call);
+    }
+
+    private JsonNode call(ObjectNode call) throws IOException {
+        long id = nextId.getAndIncrement();
+        call.put("id", id);
+        CompletableFuture<JsonNode> answer = expect(id);
+        try {
+            transmit(objectMapper.writeValueAsBytes(call));
+            return await(id, answer);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    private CompletableFuture<JsonNode> expect(long id) {
+        CompletableFuture<JsonNode> answer = new CompletableFuture<>();
+        pending.put(id, answer);
+        return answer;
+    }
+
+    private JsonNode await(long id, CompletableFuture<JsonNode> answer) throws IOException {
+        try {
+            return answer.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("No answer to call " + id + " within " + readTimeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void dispatch(JsonNode message) {
+        JsonNode id = message.get("id");
+        if (id != null && !id.isNull()) {
+            CompletableFuture<JsonNode> answer = pending.remove(id.asLong());
+            if (answer != null) {
+                answer.complete(message);
+            }
+        } else if (SUBSCRIPTION_METHOD.equals(message.path("method").asText())) {
+            JsonNode params = message.path("params");
+            String subscriptionId = params.path("subscription").asText();
+            for (Subscription subscription : subscriptions) {
+                if (subscriptionId.equals(subscription.id)) {
+                    try {
+                        subscription.listener.accept(params.get("result"));
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Error in listener of subscription " + subscriptionId, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A subscription to notifications of the node, cancelled by closing it.
+     */
+    public class Subscription implements Closeable {
+
+        private final Consumer<JsonNode> listener;
+
+        private final Object[] params;
+
+        private volatile String id;
+
+        private Subscription(Consumer<JsonNode> listener, Object[] params) {
+            this.listener = listener;
+            this.params = params;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void close() throws IOException {
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/**
+ * The Class PipelinedIpcService. Sends JSON-RPC calls over one unix domain socket without waiting for earlier calls
+ * to be answered, so that parallel and batched fetches can use a local node fully. Answers are read from the socket
+ * by a daemon thread as a stream of JSON values. A dropped socket is opened again on the next call.
+ */
+public class PipelinedIpcService extends MultiplexedService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedIpcService.class);
+
+    private final String path;
+
+    private UnixSocketChannel channel;
+
+    private boolean closed;
+
+    public PipelinedIpcService(String path, long readTimeoutMillis) throws IOException {
+        super(readTimeoutMillis);
+        this.path = path;
+        connected();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    protected void transmit(byte[] payload) throws IOException {
+        UnixSocketChannel current = connected();
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        // writes are serialized so that messages don't interleave, reading goes on meanwhile
+        synchronized (current) {
+            while (buffer.hasRemaining()) {
+                current.write(buffer);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        UnixSocketChannel current;
+        synchronized (this) {
+            closed = true;
+            current = channel;
+            channel = null;
+        }
+        super.close();
+        if (current != null) {
+            // closing alone doesn't wake the reader blocked on the socket
+            current.shutdownInput();
+            current.close();
+        }
+    }
+
+    private synchronized UnixSocketChannel connected() throws IOException {
+        if (closed) {
+            throw new IOException("Ipc service is closed");
+        }
+        if (channel == null || !channel.isOpen()) {
+            boolean reconnect = channel != null;
+            channel = UnixSocketChannel.open(new UnixSocketAddress(path));
+            UnixSocketChannel opened = channel;
+            Thread reader = new Thread(() -> readMessages(opened), "eth-ipc-reader");
+            reader.setDaemon(true);
+            reader.start();
+            if (reconnect) {
+                LOGGER.info("Reconnected ipc socket " + path);
+                resubscribe();
+            }
+        }
+        return channel;
+    }
+
+    private void readMessages(UnixSocketChannel source) {
+        IOException cause = new EOFException("Ipc socket closed by the node");
+        try (JsonParser messages = objectMapper.getFactory().createParser(new ChannelInput(source))) {
+            while (messages.nextToken() != null) {
+                onMessage(objectMapper.readTree(messages));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (source.isOpen()) {
+                LOGGER.warn("Error reading ipc socket " + path + ": " + e.getMessage());
+            }
+            cause = e instanceof IOException ? (IOException) e : new IOException(e);
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                // already failing
+            }
+            onDisconnect(cause);
+        }
+    }
+
+    /**
+     * Reads the socket directly, the streams of {@link java.nio.channels.Channels} would hold the channel lock while
+     * blocked in a read and so stop every write.
+     */
+    private static class ChannelInput extends InputStream {
+
+        private final UnixSocketChannel channel;
+
+        private final ByteBuffer single = ByteBuffer.allocate(1);
+
+        ChannelInput(UnixSocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            single.clear();
+            int read = read(single);
+            return read < 0 ? -1 : single.get(0) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            return read(ByteBuffer.wrap(bytes, offset, length));
+        }
+
+        private int read(ByteBuffer buffer) throws IOException {
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * The Class RetryingService. Sends read calls again when the transport fails, after a random wait of up to an
+ * exponentially growing delay, so that a long scan survives a short outage of the node. Calls which change state,
+ * calls turned down by an open circuit breaker and batches the node doesn't support are not retried.
+ */
+public class RetryingService extends Service implements BatchService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingService.class);
+
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList("eth_blockNumber", "eth_call",
+            "eth_estimateGas", "eth_gasPrice", "eth_protocolVersion", "eth_syncing", "net_version",
+            "web3_clientVersion"));
+
+    private static final String GETTER_PREFIX = "eth_get";
+
+    private final BatchService delegate;
+
+    private final int maxRetries;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final AtomicLong retries = new AtomicLong();
+
+    public RetryingService(BatchService delegate, int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        super(false);
+        this.delegate = delegate;
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (!isRead(request)) {
+            return delegate.send(request, responseType);
+        }
+        return retry(() -> delegate.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType)
+            throws IOException {
+        for (Request<?, T> request : requests) {
+            if (!isRead(request)) {
+                return delegate.sendBatch(requests, responseType);
+            }
+        }
+        return retry(() -> delegate.sendBatch(requests, responseType));
+    }
+
+    @Override
+    public <R> R readBatch(List<? extends Request<?, ?>> requests, ResponseReader<R> reader) throws IOException {
+        for (Request<?, ?> request : requests) {
+            if (!isRead(request)) {
+                return delegate.readBatch(requests, reader);
+            }
+        }
+        return retry(() -> delegate.readBatch(requests, reader));
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        return delegate.isBatchSupported();
+    }
+
+    public BatchService getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of calls sent again after a failure.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private static boolean isRead(Request<?, ?> request) {
+        return request.getMethod().startsWith(GETTER_PREFIX) || READ_METHODS.contains(request.getMethod());
+    }
+
+    private <T> T retry(Call<T> call) throws IOException {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return call.call();
+            } catch (BatchNotSupportedException | CircuitOpenException | InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                long delay = getDelayMillis(attempt);
+                LOGGER.warn("Call failed with " + e.getMessage() + ", retrying in " + delay + " ms");
+                retries.incrementAndGet();
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry");
+                }
+            }
+        }
+    }
+
+    private long getDelayMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt, 30);
+        if (ceiling < 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        // full jitter, so that connections failing together don't come back together
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private interface Call<T> {
+
+        T call() throws IOException;
+    }
+}
@@ -0,0 +1,147 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+
+/**
+ * Web3j clients shared by the connections to the same endpoint over the same transport. A client is built on first
+ * use with its own scheduler, and is shut down along with its transport when the last connection releases it.
+ */
+public final class Web3jRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Web3jRegistry.class);
+
+    /** Interval at which web3j polls for filter changes, the web3j default of one block time. */
+    private static final long POLLING_INTERVAL_MILLIS = 15000;
+
+    private static final Map<String, SharedClient> CLIENTS = new HashMap<>();
+
+    private Web3jRegistry() {
+    }
+
+    /**
+     * Returns a lease on the client of the given key, building the client over the transport created by the factory
+     * when there is none yet.
+     */
+    public static Lease acquire(String key, ServiceFactory serviceFactory) throws IOException {
+        synchronized (CLIENTS) {
+            SharedClient client = CLIENTS.get(key);
+            if (client == null) {
+                client = new SharedClient(serviceFactory.create());
+                CLIENTS.put(key, client);
+            }
+            client.references++;
+            return new Lease(key, client);
+        }
+    }
+
+    public static int getReferenceCount(String key) {
+        synchronized (CLIENTS) {
+            SharedClient client = CLIENTS.get(key);
+            return client == null ? 0 : client.references;
+        }
+    }
+
+    private static void release(String key, SharedClient client) {
+        synchronized (CLIENTS) {
+            if (--client.references > 0) {
+                return;
+            }
+            CLIENTS.remove(key);
+        }
+        LOGGER.info("Shutting down web3j client of " + key);
+        client.scheduler.shutdownNow();
+        if (client.service instanceof Closeable) {
+            try {
+                ((Closeable) client.service).close();
+            } catch (IOException e) {
+                LOGGER.warn("Error closing transport of " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Creates the transport of a client.
+     */
+    public interface ServiceFactory {
+
+        Web3jService create() throws IOException;
+    }
+
+    /**
+     * A connection's reference to a shared client. Releasing it more than once has no effect.
+     */
+    public static final class Lease {
+
+        private final String key;
+
+        private final SharedClient client;
+
+        private boolean released;
+
+        private Lease(String key, SharedClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        public Web3j getWeb3j() {
+            return client.web3j;
+        }
+
+        public Web3jService getService() {
+            return client.service;
+        }
+
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                Web3jRegistry.release(key, client);
+            }
+        }
+    }
+
+    private static final class SharedClient {
+
+        private final Web3jService service;
+
+        private final ScheduledExecutorService scheduler;
+
+        private final Web3j web3j;
+
+        private int references;
+
+        SharedClient(Web3jService service) {
+            this.service = service;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "web3j-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.web3j = Web3j.build(service, POLLING_INTERVAL_MILLIS, scheduler);
+        }
+    }
+}
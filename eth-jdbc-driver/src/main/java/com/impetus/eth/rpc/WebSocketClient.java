@@ -0,0 +1,312 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Client end of a WebSocket (RFC 6455) carrying text messages. Messages are read by a daemon thread and handed to the
+ * listener, so that any number of requests can wait for their answers on the one socket.
+ */
+final class WebSocketClient implements Closeable {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_CONTINUATION = 0x0;
+
+    private static final int OP_TEXT = 0x1;
+
+    private static final int OP_BINARY = 0x2;
+
+    private static final int OP_CLOSE = 0x8;
+
+    private static final int OP_PING = 0x9;
+
+    private static final int OP_PONG = 0xA;
+
+    private static final int MAX_HEADER_LENGTH = 16 * 1024;
+
+    private static final Random RANDOM = new SecureRandom();
+
+    /**
+     * Receives the messages read from the socket, on the reader thread.
+     */
+    interface Listener {
+
+        void onMessage(byte[] message);
+
+        void onClose(IOException cause);
+    }
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final OutputStream out;
+
+    private final Listener listener;
+
+    private final byte[] maskKey = new byte[4];
+
+    private volatile boolean open = true;
+
+    private WebSocketClient(Socket socket, InputStream in, Listener listener) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.listener = listener;
+    }
+
+    /**
+     * Opens the socket, makes the opening handshake and starts reading messages.
+     */
+    static WebSocketClient connect(URI uri, int connectTimeoutMillis, Listener listener) throws IOException {
+        boolean secure = "wss".equalsIgnoreCase(uri.getScheme());
+        if (!secure && !"ws".equalsIgnoreCase(uri.getScheme())) {
+            throw new IOException("Not a websocket url: " + uri);
+        }
+        String host = uri.getHost();
+        int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            if (secure) {
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, host, port, true);
+                // the certificate has to be for the host of the url, as https clients check it
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            handshake(uri, host, port, socket.getOutputStream(), in);
+            WebSocketClient client = new WebSocketClient(socket, in, listener);
+            Thread reader = new Thread(client::readMessages, "eth-websocket-reader");
+            reader.setDaemon(true);
+            reader.start();
+            return client;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    void sendText(byte[] payload) throws IOException {
+        sendFrame(OP_TEXT, payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            sendFrame(OP_CLOSE, new byte[] { 0x03, (byte) 0xE8 });
+        } catch (IOException e) {
+            // the socket is closed below anyway
+        } finally {
+            socket.close();
+        }
+    }
+
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+        if (!open && opcode != OP_CLOSE) {
+            throw new IOException("WebSocket is closed");
+        }
+        out.write(0x80 | opcode);
+        // frames from the client are always masked
+        if (payload.length < 126) {
+            out.write(0x80 | payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(0x80 | 126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        } else {
+            out.write(0x80 | 127);
+            long length = payload.length;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (length >>> shift));
+            }
+        }
+        RANDOM.nextBytes(maskKey);
+        out.write(maskKey);
+        byte[] masked = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            masked[i] = (byte) (payload[i] ^ maskKey[i & 3]);
+        }
+        out.write(masked);
+        out.flush();
+    }
+
+    private void readMessages() {
+        IOException cause = null;
+        ByteArrayOutputStream fragments = new ByteArrayOutputStream();
+        try {
+            while (open) {
+                int first = in.readUnsignedByte();
+                int second = in.readUnsignedByte();
+                boolean fin = (first & 0x80) != 0;
+                int opcode = first & 0x0F;
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = in.readLong();
+                }
+                if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                    throw new IOException("WebSocket frame too large: " + length);
+                }
+                byte[] mask = null;
+                if ((second & 0x80) != 0) {
+                    mask = new byte[4];
+                    in.readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                if (mask != null) {
+                    for (int i = 0; i < payload.length; i++) {
+                        payload[i] ^= mask[i & 3];
+                    }
+                }
+                switch (opcode) {
+                case OP_TEXT:
+                case OP_BINARY:
+                case OP_CONTINUATION:
+                    if (fin && fragments.size() == 0) {
+                        listener.onMessage(payload);
+                    } else {
+                        fragments.write(payload);
+                        if (fin) {
+                            listener.onMessage(fragments.toByteArray());
+                            fragments.reset();
+                        }
+                    }
+                    break;
+                case OP_PING:
+                    sendFrame(OP_PONG, payload);
+                    break;
+                case OP_PONG:
+                    break;
+                case OP_CLOSE:
+                    throw new EOFException("WebSocket closed by the node");
+                default:
+                    throw new IOException("Unknown websocket opcode " + opcode);
+                }
+            }
+        } catch (IOException e) {
+            cause = e;
+        } finally {
+            boolean wasOpen = open;
+            try {
+                close();
+            } catch (IOException e) {
+                // already failing
+            }
+            listener.onClose(wasOpen && cause != null ? cause : new EOFException("WebSocket closed"));
+        }
+    }
+
+    private static void handshake(URI uri, String host, int port, OutputStream out, InputStream in)
+            throws IOException {
+        byte[] nonce = new byte[16];
+        RANDOM.nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        String request = "GET " + path + " HTTP/1.1\r\n" + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n" + "Connection: Upgrade\r\n" + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        String[] lines = readHeader(in).split("\r\n");
+        if (lines.length == 0 || !lines[0].matches("HTTP/1\\.[01] 101( .*)?")) {
+            throw new IOException("WebSocket upgrade refused: " + (lines.length == 0 ? "" : lines[0]));
+        }
+        String expected = accept(key);
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0 && "sec-websocket-accept"
+                    .equals(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT))) {
+                if (expected.equals(lines[i].substring(colon + 1).trim())) {
+                    return;
+                }
+                break;
+            }
+        }
+        throw new IOException("WebSocket upgrade not acknowledged");
+    }
+
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Connection closed during websocket upgrade");
+            }
+            header.write(b);
+            if (header.size() > MAX_HEADER_LENGTH) {
+                throw new IOException("WebSocket upgrade response too long");
+            }
+            matched = (b == '\r' && (matched == 0 || matched == 2)) || (b == '\n' && (matched == 1 || matched == 3))
+                    ? matched + 1 : b == '\r' ? 1 : 0;
+        }
+        return new String(header.toByteArray(), StandardCharsets.ISO_8859_1).trim();
+    }
+
+    private static String accept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
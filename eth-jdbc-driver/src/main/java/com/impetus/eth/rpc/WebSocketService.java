@@ -0,0 +1,104 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.rpc;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class WebSocketService. Sends JSON-RPC calls over one websocket, any number of them in flight at a time. A
+ * dropped socket is opened again on the next call, and the subscriptions are made again on it.
+ */
+public class WebSocketService extends MultiplexedService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketService.class);
+
+    private final URI uri;
+
+    private final int connectTimeoutMillis;
+
+    private WebSocketClient client;
+
+    private boolean closed;
+
+    public WebSocketService(String url, int connectTimeoutMillis, long readTimeoutMillis) throws IOException {
+        super(readTimeoutMillis);
+        this.uri = URI.create(url);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        connected();
+    }
+
+    public String getUrl() {
+        return uri.toString();
+    }
+
+    @Override
+    protected void transmit(byte[] payload) throws IOException {
+        connected().sendText(payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        WebSocketClient current;
+        synchronized (this) {
+            closed = true;
+            current = client;
+            client = null;
+        }
+        super.close();
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private synchronized WebSocketClient connected() throws IOException {
+        if (closed) {
+            throw new IOException("WebSocket service is closed");
+        }
+        if (client == null || !client.isOpen()) {
+            boolean reconnect = client != null;
+            client = WebSocketClient.connect(uri, connectTimeoutMillis, new Dispatcher());
+            if (reconnect) {
+                LOGGER.info("Reconnected websocket to " + uri);
+                resubscribe();
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Reads the messages of the current socket.
+     */
+    private class Dispatcher implements WebSocketClient.Listener {
+
+        @Override
+        public void onMessage(byte[] message) {
+            try {
+                WebSocketService.this.onMessage(objectMapper.readTree(message));
+            } catch (IOException e) {
+                LOGGER.warn("Unreadable message from " + uri + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onClose(IOException cause) {
+            onDisconnect(cause);
+        }
+    }
+}
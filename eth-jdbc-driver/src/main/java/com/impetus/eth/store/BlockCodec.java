@@ -0,0 +1,208 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionHash;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+/**
+ * Binary form of a block as kept in segment files. Quantities are kept in the hex form the node sent, so a decoded
+ * block is the same as a fetched one.
+ */
+class BlockCodec {
+
+    private BlockCodec() {
+    }
+
+    static byte[] encode(Block block, boolean fullTransactionObjects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBoolean(fullTransactionObjects);
+        writeString(out, block.getNumberRaw());
+        writeString(out, block.getHash());
+        writeString(out, block.getParentHash());
+        writeString(out, block.getNonceRaw());
+        writeString(out, block.getSha3Uncles());
+        writeString(out, block.getLogsBloom());
+        writeString(out, block.getTransactionsRoot());
+        writeString(out, block.getStateRoot());
+        writeString(out, block.getReceiptsRoot());
+        writeString(out, block.getAuthor());
+        writeString(out, block.getMiner());
+        writeString(out, block.getMixHash());
+        writeString(out, block.getDifficultyRaw());
+        writeString(out, block.getTotalDifficultyRaw());
+        writeString(out, block.getExtraData());
+        writeString(out, block.getSizeRaw());
+        writeString(out, block.getGasLimitRaw());
+        writeString(out, block.getGasUsedRaw());
+        writeString(out, block.getTimestampRaw());
+        List<TransactionResult> transactions = block.getTransactions();
+        out.writeInt(transactions == null ? -1 : transactions.size());
+        if (transactions != null) {
+            for (TransactionResult<?> txnResult : transactions) {
+                if (fullTransactionObjects) {
+                    writeTransaction(out, (Transaction) txnResult.get());
+                } else {
+                    writeString(out, (String) txnResult.get());
+                }
+            }
+        }
+        writeStrings(out, block.getUncles());
+        writeStrings(out, block.getSealFields());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static boolean hasTransactionObjects(byte[] data) {
+        return data[0] != 0;
+    }
+
+    static Block decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        boolean fullTransactionObjects = in.readBoolean();
+        Block block = new Block();
+        block.setNumber(readString(in));
+        block.setHash(readString(in));
+        block.setParentHash(readString(in));
+        block.setNonce(readString(in));
+        block.setSha3Uncles(readString(in));
+        block.setLogsBloom(readString(in));
+        block.setTransactionsRoot(readString(in));
+        block.setStateRoot(readString(in));
+        block.setReceiptsRoot(readString(in));
+        block.setAuthor(readString(in));
+        block.setMiner(readString(in));
+        block.setMixHash(readString(in));
+        block.setDifficulty(readString(in));
+        block.setTotalDifficulty(readString(in));
+        block.setExtraData(readString(in));
+        block.setSize(readString(in));
+        block.setGasLimit(readString(in));
+        block.setGasUsed(readString(in));
+        block.setTimestamp(readString(in));
+        int count = in.readInt();
+        if (count >= 0) {
+            List<TransactionResult> transactions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (fullTransactionObjects) {
+                    transactions.add(readTransaction(in));
+                } else {
+                    transactions.add(new TransactionHash(readString(in)));
+                }
+            }
+            block.setTransactions(transactions);
+        }
+        block.setUncles(readStrings(in));
+        block.setSealFields(readStrings(in));
+        return block;
+    }
+
+    private static void writeTransaction(DataOutputStream out, Transaction txnInfo) throws IOException {
+        writeString(out, txnInfo.getHash());
+        writeString(out, txnInfo.getNonceRaw());
+        writeString(out, txnInfo.getBlockHash());
+        writeString(out, txnInfo.getBlockNumberRaw());
+        writeString(out, txnInfo.getTransactionIndexRaw());
+        writeString(out, txnInfo.getFrom());
+        writeString(out, txnInfo.getTo());
+        writeString(out, txnInfo.getValueRaw());
+        writeString(out, txnInfo.getGasPriceRaw());
+        writeString(out, txnInfo.getGasRaw());
+        writeString(out, txnInfo.getInput());
+        writeString(out, txnInfo.getCreates());
+        writeString(out, txnInfo.getPublicKey());
+        writeString(out, txnInfo.getRaw());
+        writeString(out, txnInfo.getR());
+        writeString(out, txnInfo.getS());
+        out.writeInt(txnInfo.getV());
+    }
+
+    private static TransactionObject readTransaction(DataInputStream in) throws IOException {
+        TransactionObject txnInfo = new TransactionObject();
+        txnInfo.setHash(readString(in));
+        txnInfo.setNonce(readString(in));
+        txnInfo.setBlockHash(readString(in));
+        txnInfo.setBlockNumber(readString(in));
+        txnInfo.setTransactionIndex(readString(in));
+        txnInfo.setFrom(readString(in));
+        txnInfo.setTo(readString(in));
+        txnInfo.setValue(readString(in));
+        txnInfo.setGasPrice(readString(in));
+        txnInfo.setGas(readString(in));
+        txnInfo.setInput(readString(in));
+        txnInfo.setCreates(readString(in));
+        txnInfo.setPublicKey(readString(in));
+        txnInfo.setRaw(readString(in));
+        txnInfo.setR(readString(in));
+        txnInfo.setS(readString(in));
+        txnInfo.setV(in.readInt());
+        return txnInfo;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,354 @@
+/******************************************************************************* 
+ * * Copyright 2018 Impetus Infotech.
+ * *
+ * * Licensed under the Apache License, Version 2.0 (the "License");
+ * * you may not use this file except in compliance with the License.
+ * * You may obtain a copy of the License at
+ * *
+ * * http://www.apache.org/licenses/LICENSE-2.0
+ * *
+ * * Unless required by applicable law or agreed to in writing, software
+ * * distributed under the License is distributed on an "AS IS" BASIS,
+ * * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * * See the License for the specific language governing permissions and
+ * * limitations under the License.
+ ******************************************************************************/
+package com.impetus.eth.store;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.utils.Numeric;
+
+/**
+ * Local store of finalized blocks and their transactions. Blocks are appended to memory-mapped segment files, each
+ * record being the length of the encoded block and a CRC32 of the block number and the encoded block, followed by the
+ * encoded block. Two append-only index files locate the records: blocks.idx maps a block number to its segment and
+ * offset, transactions.idx maps a transaction hash to its block number and position in the block. The indexes are
+ * loaded in memory when the store is opened, a later entry for the same key replacing an earlier one. A record is
+ * forced to disk before its index entry is written. A record found cut short or damaged, as after a crash of the
+ * machine, is dropped and its block is read as missing, to be fetched again. A directory is used by one process at a
+ * time, and by one store per JVM.
+ */
+public class BlockStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_FILE = "segment-%06d.seg";
+
+    private static final String BLOCK_INDEX_FILE = "blocks.idx";
+
+    private static final String TRANSACTION_INDEX_FILE = "transactions.idx";
+
+    private static final String LOCK_FILE = "store.lock";
+
+    private static final int BLOCK_INDEX_ENTRY = 16;
+
+    private static final int TRANSACTION_INDEX_ENTRY = 44;
+
+    private static final int RECORD_HEADER = 8;
+
+    private static final Map<Path, BlockStore> OPEN_STORES = new HashMap<>();
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private final Map<Long, Long> blockPositions = new HashMap<>();
+
+    private final Map<String, Long> transactionPositions = new HashMap<>();
+
+    private FileChannel lockChannel;
+
+    private FileLock lock;
+
+    private FileChannel blockIndex;
+
+    private FileChannel transactionIndex;
+
+    private int writeOffset;
+
+    private int references;
+
+    private BlockStore(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the store kept in the given directory, creating it when needed. Connections opening the same directory
+     * share one store, which is closed when the last of them releases it.
+     */
+    public static BlockStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static BlockStore open(Path directory, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        Path key = directory.toRealPath();
+        synchronized (OPEN_STORES) {
+            BlockStore store = OPEN_STORES.get(key);
+            if (store == null) {
+                store = new BlockStore(key, segmentSize);
+                store.load();
+                OPEN_STORES.put(key, store);
+            }
+            store.references++;
+            return store;
+        }
+    }
+
+    public void release() throws IOException {
+        synchronized (OPEN_STORES) {
+            if (--references > 0) {
+                return;
+            }
+            OPEN_STORES.remove(directory);
+        }
+        close();
+    }
+
+    private synchronized void load() throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Block store " + directory + " is in use by another process");
+        }
+        blockIndex = openIndex(BLOCK_INDEX_FILE, BLOCK_INDEX_ENTRY);
+        transactionIndex = openIndex(TRANSACTION_INDEX_FILE, TRANSACTION_INDEX_ENTRY);
+        for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+            segments.add(map(segment, Math.max(segmentSize, (int) Files.size(segmentPath(segment)))));
+        }
+        ByteBuffer entry = ByteBuffer.allocate(BLOCK_INDEX_ENTRY);
+        for (long position = 0; position < blockIndex.size(); position += BLOCK_INDEX_ENTRY) {
+            entry.clear();
+            blockIndex.read(entry, position);
+            entry.flip();
+            long blockNumber = entry.getLong();
+            int segment = entry.getInt();
+            int offset = entry.getInt();
+            if (segment >= segments.size()) {
+                continue;
+            }
+            byte[] data = readRecord(blockNumber, blockPosition(segment, offset));
+            if (data == null) {
+                LOGGER.warn("Dropping damaged record of block " + blockNumber + " in block store " + directory);
+                continue;
+            }
+            blockPositions.put(blockNumber, blockPosition(segment, offset));
+            if (segment == segments.size() - 1) {
+                writeOffset = Math.max(writeOffset, offset + RECORD_HEADER + data.length);
+            }
+        }
+        entry = ByteBuffer.allocate(TRANSACTION_INDEX_ENTRY);
+        byte[] hash = new byte[32];
+        for (long position = 0; position < transactionIndex.size(); position += TRANSACTION_INDEX_ENTRY) {
+            entry.clear();
+            transactionIndex.read(entry, position);
+            entry.flip();
+            entry.get(hash);
+            long blockNumber = entry.getLong();
+            int index = entry.getInt();
+            transactionPositions.put(Numeric.toHexString(hash), transactionPosition(blockNumber, index));
+        }
+        LOGGER.info("Opened block store " + directory + " with " + blockPositions.size() + " blocks and "
+                + transactionPositions.size() + " transactions");
+    }
+
+    private FileChannel openIndex(String file, int entrySize) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(file), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // drop an entry cut short by a crash
+        channel.truncate(channel.size() - channel.size() % entrySize);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format(SEGMENT_FILE, segment));
+    }
+
+    private MappedByteBuffer map(int segment, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    public synchronized boolean containsBlock(BigInteger blockNumber) {
+        return blockPositions.containsKey(blockNumber.longValue());
+    }
+
+    /**
+     * Returns the stored block, or null when it is not stored or is stored with transaction hashes only while full
+     * transaction objects are asked for.
+     */
+    public synchronized Block getBlock(BigInteger blockNumber, boolean fullTransactionObjects) throws IOException {
+        byte[] data = read(blockNumber.longValue());
+        if (data == null || (fullTransactionObjects && !BlockCodec.hasTransactionObjects(data))) {
+            return null;
+        }
+        return BlockCodec.decode(data);
+    }
+
+    public synchronized Transaction getTransaction(String transactionHash) throws IOException {
+        Long position = transactionPositions.get(transactionHash.toLowerCase());
+        if (position == null) {
+            return null;
+        }
+        Block block = getBlock(BigInteger.valueOf(position >>> 24), true);
+        if (block == null) {
+            return null;
+        }
+        return (Transaction) block.getTransactions().get((int) (position & 0xffffff)).get();
+    }
+
+    /**
+     * Returns the encoded block, or null when it is not stored. A damaged record is dropped, so the block is fetched
+     * and stored again.
+     */
+    private byte[] read(long blockNumber) {
+        Long position = blockPositions.get(blockNumber);
+        if (position == null) {
+            return null;
+        }
+        byte[] data = readRecord(blockNumber, position);
+        if (data == null) {
+            LOGGER.warn("Block " + blockNumber + " is damaged in block store " + directory
+                    + ", it will be fetched again");
+            blockPositions.remove(blockNumber);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the encoded block of the record at the position, or null when the record is cut short or its checksum
+     * doesn't match.
+     */
+    private byte[] readRecord(long blockNumber, long position) {
+        ByteBuffer segment = segments.get((int) (position >>> 32)).duplicate();
+        int offset = (int) position;
+        if (offset < 0 || offset > segment.capacity() - RECORD_HEADER) {
+            return null;
+        }
+        segment.position(offset);
+        int length = segment.getInt();
+        int checksum = segment.getInt();
+        if (length <= 0 || length > segment.remaining()) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        segment.get(data);
+        return checksum(blockNumber, data) == checksum ? data : null;
+    }
+
+    private static int checksum(long blockNumber, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(blockNumber).array());
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Appends the block unless the store already has it with at least as much transaction detail.
+     */
+    public synchronized void putBlock(Block block, boolean fullTransactionObjects) throws IOException {
+        long blockNumber = block.getNumber().longValue();
+        byte[] stored = read(blockNumber);
+        if (stored != null && (BlockCodec.hasTransactionObjects(stored) || !fullTransactionObjects)) {
+            return;
+        }
+        byte[] data = BlockCodec.encode(block, fullTransactionObjects);
+        if (segments.isEmpty()
+                || writeOffset + RECORD_HEADER + data.length > segments.get(segments.size() - 1).capacity()) {
+            segments.add(map(segments.size(), Math.max(segmentSize, RECORD_HEADER + data.length)));
+            writeOffset = 0;
+        }
+        int segment = segments.size() - 1;
+        int offset = writeOffset;
+        ByteBuffer buffer = segments.get(segment).duplicate();
+        buffer.position(offset);
+        buffer.putInt(data.length);
+        buffer.putInt(checksum(blockNumber, data));
+        buffer.put(data);
+        writeOffset = buffer.position();
+        // the record reaches the disk before the index entry pointing at it
+        segments.get(segment).force();
+
+        ByteBuffer entry = ByteBuffer.allocate(BLOCK_INDEX_ENTRY);
+        entry.putLong(blockNumber).putInt(segment).putInt(offset).flip();
+        blockIndex.write(entry);
+        blockPositions.put(blockNumber, blockPosition(segment, offset));
+        if (fullTransactionObjects) {
+            List<TransactionResult> transactions = block.getTransactions();
+            ByteBuffer entries = ByteBuffer.allocate(TRANSACTION_INDEX_ENTRY * transactions.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                String hash = ((Transaction) transactions.get(i).get()).getHash().toLowerCase();
+                byte[] hashBytes = Numeric.hexStringToByteArray(hash);
+                if (hashBytes.length == 32) {
+                    entries.put(hashBytes).putLong(blockNumber).putInt(i);
+                    transactionPositions.put(hash, transactionPosition(blockNumber, i));
+                }
+            }
+            entries.flip();
+            transactionIndex.write(entries);
+        }
+    }
+
+    public synchronized int getBlockCount() {
+        return blockPositions.size();
+    }
+
+    public synchronized int getTransactionCount() {
+        return transactionPositions.size();
+    }
+
+    private static long blockPosition(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xffffffffL);
+    }
+
+    private static long transactionPosition(long blockNumber, int index) {
+        return (blockNumber << 24) | index;
+    }
+
+    private synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        segments.clear();
+        blockPositions.clear();
+        transactionPositions.clear();
+        blockIndex.close();
+        transactionIndex.close();
+        lock.release();
+        lockChannel.close();
+    }
+}
@@ -0,0 +1,116 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+
+import com.impetus.eth.rpc.AdaptiveLimiter;
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestAdaptiveLimiter extends TestCase {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testLimitGrowsUpToCeiling() throws IOException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8);
+        assertEquals(4, limiter.getLimit());
+        for (int round = 0; round < 100; round++) {
+            int slots = limiter.getLimit();
+            for (int i = 0; i < slots; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < slots; i++) {
+                limiter.release(10 * MILLI, false);
+            }
+        }
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitHalvesOnFailureAndSlowAnswer() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8);
+        limiter.acquire();
+        limiter.release(10 * MILLI, false);
+        limiter.acquire();
+        limiter.release(10 * MILLI, true);
+        assertEquals(2, limiter.getLimit());
+
+        Thread.sleep(50);
+        limiter.acquire();
+        limiter.release(40 * MILLI, false);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testCallsWaitForFreeSlot() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (IOException e) {
+                // ignored, the latch stays closed
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(MILLI, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRateLimitedNodeLowersLimit() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(429, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.flush();
+            }
+        });
+        server.start();
+        AdaptiveLimiter limiter = new AdaptiveLimiter(16);
+        EthHttpService service = new EthHttpService("http://localhost:" + server.getAddress().getPort(),
+                new HttpTransportConfig(2, 1000, 1000, 30000, true), limiter);
+        try {
+            Web3j.build(service).ethBlockNumber().send();
+            fail("Rate limited call should fail");
+        } catch (IOException e) {
+            assertEquals(2, limiter.getLimit());
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            service.close();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.eth.columnar.AddressDictionary;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestAddressDictionary extends TestCase {
+
+    private static final String FIRST = "0x00000000000000000000000000000000000000a1";
+
+    private static final String SECOND = "0xffffffffffffffffffffffffffffffffffffffb2";
+
+    @Test
+    public void testAddressesCodedOnce() {
+        AddressDictionary dictionary = new AddressDictionary(Integer.MAX_VALUE);
+        int first = encode(dictionary, FIRST);
+        int second = encode(dictionary, SECOND);
+        assertTrue(first >= 0 && second >= 0 && first != second);
+        assertEquals(first, encode(dictionary, new String(FIRST.toCharArray())));
+        assertEquals(2, dictionary.size());
+        assertEquals(FIRST, dictionary.decode(first));
+        assertSame(dictionary.decode(first), dictionary.decode(first));
+        assertEquals(20, dictionary.getBytes(second).length);
+        assertEquals((byte) 0xb2, dictionary.getBytes(second)[19]);
+    }
+
+    @Test
+    public void testCanonicalStringShared() {
+        AddressDictionary dictionary = new AddressDictionary(Integer.MAX_VALUE);
+        String canonical = dictionary.canonical(FIRST);
+        assertSame(canonical, dictionary.canonical(new String(FIRST.toCharArray())));
+        assertSame(canonical, dictionary.decode(dictionary.lookup(FIRST)));
+        assertNull(dictionary.canonical(null));
+        String upper = FIRST.toUpperCase().replace("0X", "0x");
+        assertSame(upper, dictionary.canonical(upper));
+    }
+
+    @Test
+    public void testLookupDoesNotAdd() {
+        AddressDictionary dictionary = new AddressDictionary(Integer.MAX_VALUE);
+        assertEquals(AddressDictionary.NO_CODE, dictionary.lookup(FIRST));
+        assertEquals(0, dictionary.size());
+        assertEquals(AddressDictionary.NO_CODE, dictionary.lookup("0xa1"));
+    }
+
+    @Test
+    public void testFullDictionaryLeavesNewAddressesUncoded() {
+        AddressDictionary dictionary = new AddressDictionary(1);
+        int first = encode(dictionary, FIRST);
+        assertEquals(AddressDictionary.NO_CODE, encode(dictionary, SECOND));
+        assertEquals(first, encode(dictionary, FIRST));
+        String second = new String(SECOND.toCharArray());
+        assertSame(second, dictionary.canonical(second));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void testManyAddresses() {
+        AddressDictionary dictionary = new AddressDictionary(Integer.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, encode(dictionary, address(i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.lookup(address(i)));
+            assertEquals(address(i), dictionary.decode(i));
+        }
+    }
+
+    private static int encode(AddressDictionary dictionary, String address) {
+        return dictionary.encode(address.toCharArray(), 0, address.length());
+    }
+
+    private static String address(int i) {
+        return String.format("0x%040x", i);
+    }
+}
@@ -0,0 +1,147 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionHash;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+
+import com.impetus.eth.cache.BlockCache;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestBlockCache extends TestCase {
+
+    @Test
+    public void testHeaderOnlyBlockDoesNotAnswerFullLookup() {
+        BlockCache cache = new BlockCache(10, 10);
+        cache.putBlock(block("0xa", "0x0a", new TransactionHash("0x01")));
+        assertNotNull(cache.getBlock(BigInteger.TEN, false));
+        assertNull(cache.getBlock(BigInteger.TEN, true));
+        assertNull(cache.getTransaction("0x01"));
+    }
+
+    @Test
+    public void testFullBlockAnswersAllLookups() {
+        BlockCache cache = new BlockCache(10, 10);
+        TransactionObject txn = new TransactionObject();
+        txn.setHash("0x01");
+        cache.putBlock(block("0xa", "0x0a", txn));
+        cache.putBlock(block("0xa", "0x0a", new TransactionHash("0x01")));
+        assertNotNull(cache.getBlock(BigInteger.TEN, true));
+        assertNotNull(cache.getBlockByHash("0x0a", true));
+        assertEquals("0x01", cache.getTransaction("0x01").getHash());
+        assertEquals(3, cache.getHitCount());
+        assertNull(cache.getBlock(BigInteger.ONE, false));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testSharedPerEndpoint() {
+        BlockCache cache = BlockCache.getShared("http://localhost:8545", 10, 10);
+        BlockCache other = BlockCache.getShared("http://localhost:8546", 10, 10);
+        try {
+            assertSame(cache, BlockCache.getShared("http://localhost:8545", 10, 10));
+            assertNotSame(cache, other);
+        } finally {
+            cache.release();
+            cache.release();
+            other.release();
+        }
+    }
+
+    @Test
+    public void testSharedOnlyWithSameSettings() {
+        BlockCache cache = BlockCache.getShared("http://localhost:8547", 10, 10, 2);
+        BlockCache larger = BlockCache.getShared("http://localhost:8547", 20, 20, 2);
+        BlockCache deeper = BlockCache.getShared("http://localhost:8547", 10, 10, 12);
+        assertNotSame(cache, larger);
+        assertNotSame(cache, deeper);
+        larger.release();
+        deeper.release();
+
+        BlockCache same = BlockCache.getShared("http://localhost:8547", 10, 10, 2);
+        assertSame(cache, same);
+        cache.putBlock(block("0x1", "0x01", "0x00", null));
+        same.release();
+        assertNotNull(BlockCache.getShared("http://localhost:8547", 10, 10, 2).getBlock(BigInteger.ONE, false));
+        cache.release();
+        cache.release();
+        BlockCache fresh = BlockCache.getShared("http://localhost:8547", 10, 10, 2);
+        try {
+            assertNotSame(cache, fresh);
+            assertNull(fresh.getBlock(BigInteger.ONE, false));
+        } finally {
+            fresh.release();
+        }
+    }
+
+    @Test
+    public void testOrphanedBlockIsDroppedOnNewHead() {
+        BlockCache cache = new BlockCache(10, 10, 2);
+        cache.advanceHead(block("0xa", "0x0a", "0x09", null));
+        cache.putBlock(block("0x8", "0x08", "0x07", null));
+        cache.putBlock(block("0x9", "0x09", "0x08", null));
+        assertEquals(BigInteger.TEN, cache.getHeadNumber());
+        assertNotNull(cache.getBlockByHash("0x09", false));
+
+        cache.advanceHead(block("0xa", "0x1a", "0x19", null));
+        assertNull(cache.getBlock(BigInteger.valueOf(9), false));
+        assertNotNull(cache.getBlock(BigInteger.valueOf(8), false));
+        assertEquals("0x1a", cache.getBlock(BigInteger.TEN, false).getHash());
+    }
+
+    @Test
+    public void testLinkedBlockIsKeptOnceConfirmed() {
+        BlockCache cache = new BlockCache(10, 10, 1);
+        cache.advanceHead(block("0xa", "0x0a", "0x09", null));
+        TransactionObject txn = new TransactionObject();
+        txn.setHash("0x01");
+        txn.setBlockNumber("0xa");
+        cache.putTransaction(txn);
+        assertNull(cache.getTransaction("0x01"));
+
+        cache.advanceHead(block("0xb", "0x0b", "0x0a", null));
+        cache.advanceHead(block("0xc", "0x0c", "0x0b", null));
+        assertEquals("0x0a", cache.getBlock(BigInteger.TEN, false).getHash());
+        cache.putTransaction(txn);
+        assertEquals("0x01", cache.getTransaction("0x01").getHash());
+    }
+
+    private static Block block(String number, String hash, String parentHash, TransactionResult txn) {
+        Block block = block(number, hash, txn);
+        block.setParentHash(parentHash);
+        return block;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Block block(String number, String hash, TransactionResult txn) {
+        Block block = new Block();
+        block.setNumber(number);
+        block.setHash(hash);
+        block.setTransactions(txn == null ? Collections.emptyList() : Arrays.asList(txn));
+        return block;
+    }
+}
@@ -0,0 +1,144 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.impetus.eth.columnar.BlockColumnDecoder;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.query.EthColumns;
+import com.impetus.eth.query.EthTables;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestBlockColumnDecoder extends TestCase {
+
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private static final String TRANSACTION = "{\"blockHash\":\"0xb1\",\"blockNumber\":\"0x64\",\"creates\":null,"
+            + "\"from\":\"0xf1\",\"gas\":\"0x5208\",\"gasPrice\":\"0x4a817c800\",\"hash\":\"0xt1\",\"input\":\"0x\","
+            + "\"nonce\":\"0x7\",\"publicKey\":\"0xp1\",\"r\":\"0xr1\",\"raw\":\"0xraw\",\"s\":\"0xs1\",\"to\":\"0xa1\","
+            + "\"transactionIndex\":\"0x0\",\"v\":\"0x1b\",\"value\":\"0xde0b6b3a7640000\"}";
+
+    private static final String BLOCK = "{\"number\":\"0x64\",\"hash\":\"0xb1\",\"parentHash\":\"0xb0\","
+            + "\"nonce\":\"0x2a\",\"sha3Uncles\":\"0x5u\",\"logsBloom\":\"0x00ff\",\"transactionsRoot\":\"0xtr\","
+            + "\"stateRoot\":\"0xsr\",\"receiptsRoot\":\"0xrr\",\"author\":\"0xau\",\"miner\":\"0xmi\","
+            + "\"mixHash\":\"0xmh\",\"totalDifficulty\":\"0x1000\",\"extraData\":\"0xed\",\"size\":\"0x220\","
+            + "\"gasLimit\":\"0x47e7c4\",\"gasUsed\":\"0x5208\",\"timestamp\":\"0x5a0b3c1d\",\"sealFields\":[\"0xa\","
+            + "\"0xb\"],\"uncles\":[\"0xu1\"],\"transactions\":[" + TRANSACTION + "," + TRANSACTION.replace("0xt1",
+                    "0xt2").replace("\"v\":\"0x1b\"", "\"v\":28") + "]}";
+
+    @Test
+    public void testBlockColumnsMatchWeb3j() throws IOException {
+        List<String> columns = Arrays.asList(EthColumns.BLOCKNUMBER, EthColumns.HASH, EthColumns.PARENTHASH,
+                EthColumns.NONCE, EthColumns.SHA3UNCLES, EthColumns.LOGSBLOOM, EthColumns.TRANSACTIONSROOT,
+                EthColumns.STATEROOT, EthColumns.RECEIPTSROOT, EthColumns.AUTHOR, EthColumns.MINER,
+                EthColumns.MIXHASH, EthColumns.TOTALDIFFICULTY, EthColumns.EXTRADATA, EthColumns.SIZE,
+                EthColumns.GASLIMIT, EthColumns.GASUSED, EthColumns.TIMESTAMP, EthColumns.UNCLES,
+                EthColumns.SEALFIELDS);
+        ColumnBatch rows = decode(EthTables.BLOCK, columns, "[" + response(0, BLOCK) + "]");
+        Block block = MAPPER.readValue(response(0, BLOCK), EthBlock.class).getBlock();
+        List<Object> expected = Arrays.asList(block.getNumber(), block.getHash(), block.getParentHash(),
+                block.getNonce(), block.getSha3Uncles(), block.getLogsBloom(), block.getTransactionsRoot(),
+                block.getStateRoot(), block.getReceiptsRoot(), block.getAuthor(), block.getMiner(),
+                block.getMixHash(), block.getTotalDifficulty(), block.getExtraData(), block.getSize(),
+                block.getGasLimit(), block.getGasUsed(), block.getTimestamp(), block.getUncles(),
+                block.getSealFields());
+        assertEquals(1, rows.getRowCount());
+        assertEquals(expected, rows.asRows().get(0));
+    }
+
+    @Test
+    public void testTransactionColumnsMatchWeb3j() throws IOException {
+        List<String> columns = Arrays.asList(EthColumns.HASH, EthColumns.FROM, EthColumns.TO, EthColumns.CREATES,
+                EthColumns.GAS, EthColumns.GASPRICE, EthColumns.NONCE, EthColumns.V, EthColumns.VALUE,
+                EthColumns.BLOCKNUMBER, EthColumns.TRANSACTIONINDEX, EthColumns.INPUT);
+        ColumnBatch rows = decode(EthTables.TRANSACTION, columns, "[" + response(0, BLOCK) + "]");
+        assertEquals(2, rows.getRowCount());
+        Transaction transaction = MAPPER.readValue(TRANSACTION, Transaction.class);
+        List<Object> expected = Arrays.asList(transaction.getHash(), transaction.getFrom(), transaction.getTo(),
+                transaction.getCreates(), transaction.getGas().toString(), transaction.getGasPrice(),
+                transaction.getNonce(), String.valueOf(transaction.getV()), transaction.getValue(),
+                transaction.getBlockNumber(), transaction.getTransactionIndex(), transaction.getInput());
+        assertEquals(expected, rows.asRows().get(0));
+        assertEquals("0xt2", rows.get(1, 0));
+        assertEquals("28", rows.get(1, 7));
+    }
+
+    @Test
+    public void testResponsesPutInRequestOrder() throws IOException {
+        String reply = "[" + response(2, BLOCK.replace("0x64", "0x66")) + "," + response(0, BLOCK) + ","
+                + "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":null}," + response(3, BLOCK.replace("0x64", "0x67"))
+                + "]";
+        ColumnBatch rows = decode(EthTables.TRANSACTION, Arrays.asList(EthColumns.BLOCKNUMBER, EthColumns.HASH),
+                reply);
+        assertEquals(6, rows.getRowCount());
+        assertEquals("100", rows.get(0, 0).toString());
+        assertEquals("0xt2", rows.get(1, 1));
+        assertEquals("102", rows.get(2, 0).toString());
+        assertEquals("103", rows.get(5, 0).toString());
+    }
+
+    @Test
+    public void testAddressesShareOneString() throws IOException {
+        String sender = "0xab12ab12ab12ab12ab12ab12ab12ab12ab12ab12";
+        String block = BLOCK.replace("0xf1", sender);
+        ColumnBatch rows = decode(EthTables.TRANSACTION, Arrays.asList(EthColumns.FROM, EthColumns.TO),
+                "[" + response(0, block) + "," + response(1, block.replace("0x64", "0x65")) + "]");
+        assertEquals(4, rows.getRowCount());
+        assertEquals(sender, rows.get(0, 0));
+        assertSame(rows.get(0, 0), rows.get(3, 0));
+        assertEquals(rows.getCode(0, 0), rows.getCode(3, 0));
+        assertEquals(20, rows.getBytes(0, 0).length);
+        assertEquals("0xa1", rows.get(0, 1));
+    }
+
+    @Test
+    public void testErrorResponseFails() {
+        String reply = "[" + response(0, BLOCK) + ",{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32000,"
+                + "\"message\":\"header not found\"}}]";
+        try {
+            decode(EthTables.BLOCK, Arrays.asList(EthColumns.HASH), reply);
+            fail("Error response should fail the decode");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("header not found"));
+        }
+    }
+
+    private static ColumnBatch decode(String table, List<String> columns, String reply) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(reply)) {
+            parser.nextToken();
+            return new BlockColumnDecoder(table, columns).read(parser);
+        }
+    }
+
+    private static String response(int id, String result) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":" + result + "}";
+    }
+}
@@ -0,0 +1,179 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionHash;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+
+import com.impetus.eth.store.BlockStore;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestBlockStore extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("blockstore");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.walk(directory).sorted((first, second) -> second.compareTo(first)).forEach(path -> {
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                // temporary files
+            }
+        });
+    }
+
+    @Test
+    public void testBlocksSurviveReopen() throws Exception {
+        BlockStore store = BlockStore.open(directory, 1024);
+        for (int i = 1; i <= 20; i++) {
+            store.putBlock(fullBlock(i), true);
+        }
+        store.release();
+
+        store = BlockStore.open(directory, 1024);
+        assertEquals(20, store.getBlockCount());
+        Block block = store.getBlock(BigInteger.valueOf(7), true);
+        assertEquals(BigInteger.valueOf(7), block.getNumber());
+        assertEquals(hash(7, 0), block.getHash());
+        assertEquals(BigInteger.valueOf(21000), ((TransactionObject) block.getTransactions().get(1)).getGas());
+        assertEquals(hash(7, 2), store.getTransaction(hash(7, 2)).getHash());
+        assertEquals(BigInteger.valueOf(2), store.getTransaction(hash(7, 2)).getTransactionIndex());
+        assertNull(store.getBlock(BigInteger.valueOf(21), false));
+        store.putBlock(fullBlock(21), true);
+        assertNotNull(store.getBlock(BigInteger.valueOf(21), false));
+        store.release();
+    }
+
+    @Test
+    public void testHeaderOnlyBlockIsReplacedByFullBlock() throws Exception {
+        BlockStore store = BlockStore.open(directory);
+        Block header = fullBlock(5);
+        header.setTransactions(Arrays.asList(new TransactionHash(hash(5, 1)), new TransactionHash(hash(5, 2))));
+        store.putBlock(header, false);
+        assertNotNull(store.getBlock(BigInteger.valueOf(5), false));
+        assertNull(store.getBlock(BigInteger.valueOf(5), true));
+        assertNull(store.getTransaction(hash(5, 1)));
+
+        store.putBlock(fullBlock(5), true);
+        assertNotNull(store.getBlock(BigInteger.valueOf(5), true));
+        assertNotNull(store.getTransaction(hash(5, 1)));
+        store.release();
+    }
+
+    @Test
+    public void testDamagedRecordsAreMisses() throws Exception {
+        BlockStore store = BlockStore.open(directory);
+        for (int i = 1; i <= 3; i++) {
+            store.putBlock(fullBlock(i), true);
+        }
+        store.release();
+
+        // a record zeroed as when its index entry reached the disk and the record didn't, and a record with a bad byte
+        try (FileChannel segment = FileChannel.open(directory.resolve("segment-000000.seg"),
+                StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(64), recordOffset(2));
+            segment.write(ByteBuffer.wrap(new byte[] { 0x7f }), recordOffset(3) + 20);
+        }
+        store = BlockStore.open(directory);
+        assertEquals(1, store.getBlockCount());
+        assertNotNull(store.getBlock(BigInteger.ONE, true));
+        assertNull(store.getBlock(BigInteger.valueOf(2), true));
+        assertNull(store.getBlock(BigInteger.valueOf(3), false));
+        assertNull(store.getTransaction(hash(3, 1)));
+
+        // the blocks fetched again replace the damaged records
+        store.putBlock(fullBlock(2), true);
+        store.putBlock(fullBlock(3), true);
+        store.release();
+        store = BlockStore.open(directory);
+        assertEquals(3, store.getBlockCount());
+        assertEquals(hash(3, 0), store.getBlock(BigInteger.valueOf(3), true).getHash());
+        assertEquals(hash(2, 1), store.getTransaction(hash(2, 1)).getHash());
+        store.release();
+    }
+
+    private long recordOffset(long blockNumber) throws IOException {
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("blocks.idx")));
+        while (index.hasRemaining()) {
+            long number = index.getLong();
+            int segment = index.getInt();
+            int offset = index.getInt();
+            if (number == blockNumber && segment == 0) {
+                return offset;
+            }
+        }
+        throw new IllegalStateException("Block " + blockNumber + " is not in the first segment");
+    }
+
+    @Test
+    public void testDirectoryIsSharedInProcess() throws Exception {
+        BlockStore store = BlockStore.open(directory);
+        assertSame(store, BlockStore.open(directory));
+        store.release();
+        store.release();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Block fullBlock(int number) {
+        Block block = new Block();
+        block.setNumber("0x" + Integer.toHexString(number));
+        block.setHash(hash(number, 0));
+        block.setParentHash(hash(number - 1, 0));
+        block.setGasUsed("0x5208");
+        block.setExtraData("0x");
+        List<TransactionResult> transactions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TransactionObject txn = new TransactionObject();
+            txn.setHash(hash(number, i));
+            txn.setBlockNumber(block.getNumberRaw());
+            txn.setTransactionIndex("0x" + i);
+            txn.setGas("0x5208");
+            txn.setV(27);
+            transactions.add(txn);
+        }
+        block.setTransactions(transactions);
+        block.setUncles(new ArrayList<>());
+        return block;
+    }
+
+    private static String hash(int number, int index) {
+        return String.format("0x%060x%04x", number, index);
+    }
+}
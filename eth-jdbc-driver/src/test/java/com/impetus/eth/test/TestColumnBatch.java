@@ -0,0 +1,143 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.columnar.ColumnType;
+import com.impetus.eth.jdbc.EthResultSet;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestColumnBatch extends TestCase {
+
+    private static final String HASH = "0x88e96d4537bea4d9c05d12549907b32561d3bf31f45aae734cdc119f13406cb6";
+
+    private static final String ADDRESS = "0x8d12a197cb00d4747a1fe03395095ce2a5cc6819";
+
+    private static final List<String> COLUMNS = Arrays.asList("blocknumber", "gas", "hash", "from", "input");
+
+    private ColumnBatch batch;
+
+    @Override
+    protected void setUp() {
+        batch = new ColumnBatch(COLUMNS, new ColumnType[] { ColumnType.QUANTITY, ColumnType.QUANTITY_TEXT,
+                ColumnType.HASH, ColumnType.ADDRESS, ColumnType.OBJECT }, 1);
+        write(0, "0x64", "0x5208", HASH, ADDRESS, "0x");
+        // a value above 63 bits and a checksummed address are kept as they came
+        write(1, "0xde0b6b3a76400000", "0x0", "0x1", "0x8D12A197cb00D4747a1fe03395095ce2a5cc6819", null);
+        batch.addRow();
+    }
+
+    private void write(int row, String... values) {
+        assertEquals(row, batch.addRow());
+        for (int column = 0; column < values.length; column++) {
+            if (values[column] != null) {
+                batch.setHex(row, column, values[column].toCharArray(), 0, values[column].length());
+            }
+        }
+    }
+
+    @Test
+    public void testValuesReadBackAsWritten() {
+        assertEquals(3, batch.getRowCount());
+        assertEquals(Arrays.asList(BigInteger.valueOf(100), "21000", HASH, ADDRESS, "0x"), batch.asRows().get(0));
+        assertTrue(batch.hasLong(0, 0));
+        assertEquals(100, batch.getLong(0, 0));
+        assertEquals(new BigInteger("de0b6b3a76400000", 16), batch.get(1, 0));
+        assertFalse(batch.hasLong(1, 0));
+        assertEquals("0x1", batch.get(1, 2));
+        assertEquals("0x8D12A197cb00D4747a1fe03395095ce2a5cc6819", batch.get(1, 3));
+        assertEquals(20, batch.getBytes(0, 3).length);
+        assertNull(batch.getBytes(1, 3));
+        assertEquals(Arrays.asList(null, null, null, null, null), batch.asRows().get(2));
+    }
+
+    @Test
+    public void testViewsShareColumns() {
+        ColumnBatch view = batch.slice(1, 3).project(new int[] { 3, 0 }, Arrays.asList("sender", "blocknumber"));
+        assertEquals(2, view.getRowCount());
+        assertEquals("0x8D12A197cb00D4747a1fe03395095ce2a5cc6819", view.get(0, 0));
+        assertEquals(new BigInteger("de0b6b3a76400000", 16), view.get(0, 1));
+        ColumnBatch reordered = batch.reorder(new int[] { 1, 0 });
+        assertEquals(HASH, reordered.get(1, 2));
+        reordered.append(batch.slice(0, 1));
+        assertEquals(3, reordered.getRowCount());
+        assertEquals(BigInteger.valueOf(100), reordered.get(2, 0));
+        try {
+            view.addRow();
+            fail("A view should not take rows");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWideColumnKeptUndecodedUntilRead() {
+        ColumnBatch wide = new ColumnBatch(Arrays.asList("input"), new ColumnType[] { ColumnType.HEX_TEXT }, 1);
+        String input = "0xa9059cbb000000000000000000000000" + ADDRESS.substring(2);
+        for (String value : new String[] { input, "0x", null, "0xAbC" }) {
+            int row = wide.addRow();
+            if (value != null) {
+                wide.setHex(row, 0, value.toCharArray(), 0, value.length());
+            }
+        }
+        assertEquals(input, wide.get(0, 0));
+        assertEquals(0xa9, wide.getBytes(0, 0)[0] & 0xff);
+        assertEquals(36, wide.getBytes(0, 0).length);
+        assertEquals(0, wide.getBytes(1, 0).length);
+        assertNull(wide.get(2, 0));
+        assertNull(wide.getBytes(3, 0));
+        ColumnBatch reordered = wide.reorder(new int[] { 3, 2, 1, 0 });
+        assertEquals(Arrays.asList("0xAbC", null, "0x", input),
+                Arrays.asList(reordered.get(0, 0), reordered.get(1, 0), reordered.get(2, 0), reordered.get(3, 0)));
+    }
+
+    @Test
+    public void testResultSetReadsColumnsInPlace() throws SQLException {
+        ColumnBatch rows = batch.slice(0, 2);
+        HashMap<String, Integer> columnNamesMap = new HashMap<>();
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            columnNamesMap.put(COLUMNS.get(column), column);
+        }
+        ResultSet resultSet = new EthResultSet(new DataFrame(rows.asRows(), columnNamesMap, new HashMap<>()),
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, "transaction");
+        assertTrue(resultSet.next());
+        assertEquals(100, resultSet.getLong("blocknumber"));
+        assertEquals("21000", resultSet.getString(2));
+        assertEquals(HASH, resultSet.getObject("hash"));
+        assertEquals(20, resultSet.getBytes("from").length);
+        assertTrue(resultSet.next());
+        assertEquals("16000000000000000000", resultSet.getString("blocknumber"));
+        assertEquals("0x1", resultSet.getString("hash"));
+        assertTrue(resultSet.first());
+        assertEquals(HASH, resultSet.getString("hash"));
+        assertTrue(resultSet.last());
+        assertFalse(resultSet.next());
+    }
+}
@@ -0,0 +1,245 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.jdbc.DriverConstants;
+import com.impetus.eth.jdbc.EthConnection;
+import com.impetus.eth.parser.EthQueryExecutor;
+import com.impetus.eth.test.util.PlanUtil;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestColumnarScan extends TestCase {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String SENDER = "0x8d12a197cb00d4747a1fe03395095ce2a5cc6819";
+
+    private static final String OTHER_SENDER = "0x00000000000000000000000000000000000000a1";
+
+    private static final String RANGE_QUERY = "select hash, from, blocknumber from transaction "
+            + "where blocknumber >= 1 and blocknumber <= 4";
+
+    private HttpServer server;
+
+    private volatile int head = 0x100;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = MAPPER.readTree(in);
+            }
+            JsonNode reply;
+            if (request.isArray()) {
+                ArrayNode replies = MAPPER.createArrayNode();
+                for (JsonNode call : request) {
+                    replies.add(reply(call));
+                }
+                reply = replies;
+            } else {
+                reply = reply(request);
+            }
+            byte[] body = MAPPER.writeValueAsBytes(reply);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    /**
+     * Answers the calls of the driver from a chain of 256 blocks unless the head is moved, each with a transaction
+     * sent by SENDER and one sent by OTHER_SENDER.
+     */
+    private JsonNode reply(JsonNode call) {
+        ObjectNode reply = MAPPER.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", call.get("id"));
+        switch (call.get("method").asText()) {
+            case "web3_clientVersion":
+                reply.put("result", "test");
+                break;
+            case "eth_blockNumber":
+                reply.put("result", "0x" + Integer.toHexString(head));
+                break;
+            case "eth_getBlockByNumber":
+                String number = call.get("params").get(0).asText();
+                reply.set("result", block(number.equals("latest") ? head : Integer.decode(number)));
+                break;
+            default:
+                reply.putObject("error").put("code", -32601).put("message", "method not found");
+        }
+        return reply;
+    }
+
+    private static ObjectNode block(int number) {
+        ObjectNode block = MAPPER.createObjectNode();
+        block.put("number", "0x" + Integer.toHexString(number));
+        block.put("hash", hash("b", number, 0));
+        block.put("parentHash", hash("b", number - 1, 0));
+        block.put("miner", SENDER);
+        block.put("gasLimit", "0x47e7c4");
+        block.put("gasUsed", "0xa410");
+        block.put("timestamp", "0x5a0b3c1d");
+        ArrayNode transactions = block.putArray("transactions");
+        for (int index = 0; index < 2; index++) {
+            ObjectNode transaction = transactions.addObject();
+            transaction.put("hash", hash("t", number, index));
+            transaction.put("blockHash", hash("b", number, 0));
+            transaction.put("blockNumber", "0x" + Integer.toHexString(number));
+            transaction.put("transactionIndex", "0x" + index);
+            transaction.put("from", index == 0 ? SENDER : OTHER_SENDER);
+            transaction.put("to", OTHER_SENDER);
+            transaction.put("gas", "0x5208");
+            transaction.put("gasPrice", "0x4a817c800");
+            transaction.put("nonce", "0x" + Integer.toHexString(number));
+            transaction.put("value", "0xde0b6b3a7640000");
+            transaction.put("input", "0x");
+            transaction.put("v", "0x1b");
+        }
+        return block;
+    }
+
+    private static String hash(String prefix, int number, int index) {
+        return String.format("0x%s%063x", prefix.equals("b") ? "b" : "c", number * 2 + index);
+    }
+
+    private EthConnection connect(boolean columnar, int transactionIndexSize) throws SQLException {
+        return connect(columnar, transactionIndexSize, new Properties());
+    }
+
+    private EthConnection connect(boolean columnar, int transactionIndexSize, Properties props) throws SQLException {
+        props.setProperty(DriverConstants.HOSTNAME, "localhost");
+        props.setProperty(DriverConstants.PORTNUMBER, Integer.toString(server.getAddress().getPort()));
+        props.setProperty(DriverConstants.COLUMNAR_DECODE, Boolean.toString(columnar));
+        if (transactionIndexSize >= 0) {
+            props.setProperty(DriverConstants.TRANSACTION_INDEX_SIZE, Integer.toString(transactionIndexSize));
+        }
+        return new EthConnection("jdbc:blkchn:ethereum://localhost:" + server.getAddress().getPort(), props);
+    }
+
+    private static DataFrame query(EthConnection connection, String sql) {
+        return new EthQueryExecutor(PlanUtil.getLogicalPlan(sql), connection).executeQuery();
+    }
+
+    @Test
+    public void testTransactionRangeDecoded() throws SQLException {
+        EthConnection columnar = connect(true, -1);
+        EthConnection rows = connect(false, -1);
+        try {
+            assertNull(columnar.getTransactionIndex());
+            DataFrame decoded = query(columnar, RANGE_QUERY);
+            assertTrue(decoded.getData() instanceof ColumnBatch.Rows);
+            List<List<Object>> expected = query(rows, RANGE_QUERY).getData();
+            assertEquals(8, expected.size());
+            assertEquals(expected, decoded.getData());
+            assertEquals(BigInteger.valueOf(4), decoded.getData().get(7).get(2));
+        } finally {
+            columnar.close();
+            rows.close();
+        }
+    }
+
+    @Test
+    public void testTransactionIndexFilledByScans() throws SQLException {
+        EthConnection connection = connect(true, 64);
+        try {
+            DataFrame indexed = query(connection, RANGE_QUERY);
+            assertFalse(indexed.getData() instanceof ColumnBatch.Rows);
+            assertEquals(8, indexed.getData().size());
+            assertTrue(connection.getTransactionIndex().containsBlock(BigInteger.valueOf(4)));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testSenderFilterOnCodes() throws SQLException {
+        EthConnection columnar = connect(true, -1);
+        EthConnection rows = connect(false, -1);
+        try {
+            for (String comparator : new String[] { "=", "!=" }) {
+                String sql = RANGE_QUERY + " and from " + comparator + " '" + SENDER + "'";
+                DataFrame decoded = query(columnar, sql);
+                assertTrue(decoded.getData() instanceof ColumnBatch.Rows);
+                List<List<Object>> expected = query(rows, sql).getData();
+                assertEquals(4, expected.size());
+                assertEquals(expected, decoded.getData());
+                for (List<Object> row : decoded.getData()) {
+                    assertEquals(comparator.equals("="), SENDER.equals(row.get(1)));
+                }
+            }
+        } finally {
+            columnar.close();
+            rows.close();
+        }
+    }
+
+    @Test
+    public void testFinalityFollowsHeadDuringScan() throws SQLException {
+        head = 10;
+        Properties props = new Properties();
+        props.setProperty(DriverConstants.CONFIRMATION_DEPTH, "2");
+        props.setProperty(DriverConstants.HEAD_MAX_STALENESS_MILLIS, "0");
+        EthConnection connection = connect(false, 64, props);
+        try {
+            EthQueryExecutor executor = new EthQueryExecutor(PlanUtil.getLogicalPlan(
+                    "select hash, blocknumber from transaction where blocknumber >= 1 and blocknumber <= 20"),
+                    connection);
+            assertEquals(4, executor.executeWindow(new Range<>(BigInteger.valueOf(9), BigInteger.valueOf(10)))
+                    .getData().size());
+            assertFalse(connection.getTransactionIndex().containsBlock(BigInteger.valueOf(9)));
+
+            // the head moves on while the scan is running, the next window is confirmed against the new head
+            head = 20;
+            assertEquals(4, executor.executeWindow(new Range<>(BigInteger.valueOf(11), BigInteger.valueOf(12)))
+                    .getData().size());
+            assertTrue(connection.getTransactionIndex().containsBlock(BigInteger.valueOf(12)));
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -55,4 +55,20 @@ public class TestEthDriver extends TestCase {
         Properties prop = EthDriver.getPropMap(url);
         assertEquals("ropsten.infura.io/1234", prop.get(DriverConstants.INFURAURL));
     }
+
+    @Test
+    public void testMultiEndpointPropMap() {
+        String url = "jdbc:blkchn:ethereum://node1:8545, node2:8545,https://node3.example.com/rpc";
+        Properties prop = EthDriver.getPropMap(url);
+        assertEquals("http://node1:8545,http://node2:8545,https://node3.example.com/rpc",
+                prop.get(DriverConstants.ENDPOINTS));
+    }
+
+    @Test
+    public void testWebSocketPropMap() {
+        String url = "jdbc:blkchn:ethereum://wss://mainnet.infura.io/ws/1234";
+        Properties prop = EthDriver.getPropMap(url);
+        assertEquals("wss://mainnet.infura.io/ws/1234", prop.get(DriverConstants.WEBSOCKET));
+        assertNull(prop.get(DriverConstants.INFURAURL));
+    }
 }
@@ -0,0 +1,262 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.impetus.eth.columnar.BlockColumnDecoder;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.query.EthColumns;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.rpc.BatchNotSupportedException;
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestEthHttpService extends TestCase {
+
+    private HttpServer server;
+
+    private String reply;
+
+    private int status = 200;
+
+    /** Batches larger than this are refused with 413, and others answered with their blocks. */
+    private int maxBatch;
+
+    private List<Integer> batchSizes = new ArrayList<>();
+
+    private String url;
+
+    private Set<Integer> clientPorts = new HashSet<>();
+
+    private List<String> acceptEncodings = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            acceptEncodings.add(acceptEncoding);
+            int responseStatus = status;
+            String responseReply = reply;
+            if (maxBatch > 0) {
+                JsonNode batch;
+                try (InputStream in = exchange.getRequestBody()) {
+                    batch = new ObjectMapper().readTree(in);
+                }
+                batchSizes.add(batch.size());
+                if (batch.size() > maxBatch) {
+                    responseStatus = 413;
+                    responseReply = "Request Entity Too Large";
+                } else {
+                    StringBuilder replies = new StringBuilder("[");
+                    for (JsonNode request : batch) {
+                        replies.append(replies.length() > 1 ? "," : "").append(
+                                blockResponse(request.get("id").asInt(), request.get("params").get(0).asText()));
+                    }
+                    responseReply = replies.append("]").toString();
+                }
+            }
+            byte[] body = responseReply.getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchResponsesInRequestOrder() throws IOException {
+        reply = "[" + blockResponse(1, "0x65") + "," + blockResponse(0, "0x64") + "]";
+        EthHttpService service = new EthHttpService(url);
+        List<EthBlock> blocks = service.sendBatch(blockRequests(service, 100, 101), EthBlock.class);
+        assertEquals(2, blocks.size());
+        assertEquals(BigInteger.valueOf(100), blocks.get(0).getBlock().getNumber());
+        assertEquals(BigInteger.valueOf(101), blocks.get(1).getBlock().getNumber());
+        assertTrue(service.isBatchSupported());
+    }
+
+    @Test
+    public void testRawBatchDecodedInRequestOrder() throws IOException {
+        reply = "[" + blockResponse(1, "0x65") + "," + blockResponse(0, "0x64") + "]";
+        EthHttpService service = new EthHttpService(url, new HttpTransportConfig(2, 1000, 1000, 30000, true));
+        ColumnBatch rows = service.readBatch(blockRequests(service, 100, 101),
+                new BlockColumnDecoder(EthTables.BLOCK, Arrays.asList(EthColumns.BLOCKNUMBER)));
+        assertEquals(2, rows.getRowCount());
+        assertEquals(BigInteger.valueOf(100), rows.get(0, 0));
+        assertEquals(BigInteger.valueOf(101), rows.get(1, 0));
+        service.close();
+    }
+
+    @Test
+    public void testBatchRejected() throws IOException {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32600,\"message\":\"batch not supported\"}}";
+        EthHttpService service = new EthHttpService(url);
+        try {
+            service.sendBatch(blockRequests(service, 100, 101), EthBlock.class);
+            fail("Batch should have been rejected");
+        } catch (BatchNotSupportedException e) {
+            assertFalse(service.isBatchSupported());
+        }
+    }
+
+    @Test
+    public void testBatchRejectedWithStatus() throws IOException {
+        status = 400;
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32600,\"message\":\"batch not supported\"}}";
+        EthHttpService service = new EthHttpService(url);
+        try {
+            service.sendBatch(blockRequests(service, 100, 101), EthBlock.class);
+            fail("Batch should have been rejected");
+        } catch (BatchNotSupportedException e) {
+            assertFalse(service.isBatchSupported());
+        }
+    }
+
+    @Test
+    public void testUnauthorizedBatchKeepsBatching() throws IOException {
+        status = 401;
+        reply = "Unauthorized";
+        EthHttpService service = new EthHttpService(url);
+        try {
+            service.sendBatch(blockRequests(service, 100, 101), EthBlock.class);
+            fail("Batch should have failed");
+        } catch (BatchNotSupportedException e) {
+            fail("An unauthorized batch is not an unsupported one");
+        } catch (IOException e) {
+            assertTrue(service.isBatchSupported());
+        }
+    }
+
+    @Test
+    public void testBatchErrorKeepsBatching() throws IOException {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32005,\"message\":\"limit exceeded\"}}";
+        EthHttpService service = new EthHttpService(url);
+        try {
+            service.sendBatch(blockRequests(service, 100, 101), EthBlock.class);
+            fail("Batch should have failed");
+        } catch (BatchNotSupportedException e) {
+            fail("A failed batch is not an unsupported one");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("limit exceeded"));
+            assertTrue(service.isBatchSupported());
+        }
+    }
+
+    @Test
+    public void testBatchTooLargeSentInParts() throws IOException {
+        maxBatch = 2;
+        EthHttpService service = new EthHttpService(url);
+        List<EthBlock> blocks = service.sendBatch(blockRequests(service, 100, 101, 102, 103, 104), EthBlock.class);
+        assertEquals(5, blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            assertEquals(BigInteger.valueOf(100 + i), blocks.get(i).getBlock().getNumber());
+        }
+        assertTrue(service.isBatchSupported());
+
+        batchSizes.clear();
+        ColumnBatch rows = service.readBatch(blockRequests(service, 105, 106, 107),
+                new BlockColumnDecoder(EthTables.BLOCK, Arrays.asList(EthColumns.BLOCKNUMBER)));
+        assertEquals(3, rows.getRowCount());
+        for (int i = 0; i < rows.getRowCount(); i++) {
+            assertEquals(BigInteger.valueOf(105 + i), rows.get(i, 0));
+        }
+        // later batches are sent in parts the node takes
+        assertEquals(Arrays.asList(2, 1), batchSizes);
+    }
+
+    @Test
+    public void testSharedTransportKeepsConnectionAlive() throws IOException {
+        reply = blockResponse(1, "0x64");
+        EthHttpService service = new EthHttpService(url, new HttpTransportConfig(2, 1000, 1000, 30000, true));
+        for (int i = 0; i < 3; i++) {
+            Web3j web3j = Web3j.build(service);
+            assertEquals(BigInteger.valueOf(100),
+                    web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.TEN), false).send()
+                            .getBlock().getNumber());
+        }
+        assertEquals(1, clientPorts.size());
+        assertTrue(acceptEncodings.get(0).contains("gzip"));
+        service.close();
+    }
+
+    @Test
+    public void testCompressionCanBeDisabled() throws IOException {
+        reply = blockResponse(1, "0x64");
+        EthHttpService service = new EthHttpService(url, new HttpTransportConfig(2, 1000, 1000, 30000, false));
+        Web3j.build(service).ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.TEN), false).send();
+        assertNull(acceptEncodings.get(0));
+        service.close();
+    }
+
+    private static List<Request<?, EthBlock>> blockRequests(EthHttpService service, long... blockNumbers) {
+        Web3j web3j = Web3j.build(service);
+        List<Request<?, EthBlock>> requests = new ArrayList<>();
+        for (long blockNumber : blockNumbers) {
+            requests.add(web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber)),
+                    true));
+        }
+        return requests;
+    }
+
+    private static String blockResponse(int id, String number) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":{\"number\":\"" + number
+                + "\",\"transactions\":[],\"uncles\":[]}}";
+    }
+}
@@ -0,0 +1,89 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.jdbc.EthPagedResultSet;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.test.util.WindowExecutor;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestEthPagedResultSet extends TestCase {
+
+    @Test
+    public void testNextSubRangeFetchedWhenChunkIsRead() throws Exception {
+        WindowExecutor executor = new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 7");
+        ResultSet rs = new EthPagedResultSet(executor, 3, ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, rs.getType());
+        assertTrue(executor.getWindows().isEmpty());
+        for (int row = 1; row <= 3; row++) {
+            assertTrue(rs.next());
+            assertEquals(BigInteger.valueOf(row), rs.getObject(1));
+        }
+        assertEquals(1, executor.getWindows().size());
+        assertTrue(rs.next());
+        assertEquals(2, executor.getWindows().size());
+        int rows = 4;
+        while (rs.next()) {
+            rows++;
+        }
+        assertEquals(7, rows);
+        assertEquals(Arrays.asList(new Range<>(BigInteger.valueOf(1), BigInteger.valueOf(3)),
+                new Range<>(BigInteger.valueOf(4), BigInteger.valueOf(6)),
+                new Range<>(BigInteger.valueOf(7), BigInteger.valueOf(7))), executor.getWindows());
+        rs.close();
+    }
+
+    @Test
+    public void testPagesOnlyThroughAndedRanges() throws Exception {
+        WindowExecutor executor = new WindowExecutor("select blocknumber from block "
+                + "where blocknumber > 5 and gasused > 1 and blocknumber < 10");
+        ResultSet rs = new EthPagedResultSet(executor, 3, ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+        }
+        assertEquals(4, rows);
+        assertEquals(Arrays.asList(new Range<>(BigInteger.valueOf(6), BigInteger.valueOf(8)),
+                new Range<>(BigInteger.valueOf(9), BigInteger.valueOf(9))), executor.getWindows());
+        rs.close();
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        WindowExecutor executor = new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 100 limit 4");
+        ResultSet rs = new EthPagedResultSet(executor, 3, ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+        }
+        assertEquals(4, rows);
+        assertEquals(2, executor.getWindows().size());
+        rs.close();
+    }
+}
@@ -0,0 +1,53 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.eth.parser.EthPhysicalPlan;
+import com.impetus.eth.query.EthColumns;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.test.util.PlanUtil;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestEthPhysicalPlan extends TestCase {
+
+    @Test
+    public void testReferencedColumns() {
+        EthPhysicalPlan plan = getPhysicalPlan("select hash as h, count(gasused) from block "
+                + "where blocknumber > 10 and blocknumber < 20 and miner = 'abc' group by hash order by h");
+        assertEquals(Arrays.asList(EthColumns.BLOCKNUMBER, EthColumns.HASH, EthColumns.MINER, EthColumns.GASUSED),
+                plan.getReferencedColumns(EthTables.BLOCK));
+        assertFalse(plan.getReferencedColumns(EthTables.BLOCK).contains(EthColumns.TRANSACTIONS));
+    }
+
+    @Test
+    public void testStarReferencesAllColumns() {
+        EthPhysicalPlan plan = getPhysicalPlan("select * from block where blocknumber = 10");
+        assertTrue(plan.getReferencedColumns(EthTables.BLOCK).contains(EthColumns.TRANSACTIONS));
+        assertTrue(plan.getReferencedColumns(EthTables.BLOCK).contains(EthColumns.SEALFIELDS));
+    }
+
+    private EthPhysicalPlan getPhysicalPlan(String sqlText) {
+        return new EthPhysicalPlan(PlanUtil.getLogicalPlan(sqlText));
+    }
+}
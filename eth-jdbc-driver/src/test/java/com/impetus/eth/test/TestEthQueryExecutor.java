@@ -0,0 +1,116 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.blkch.sql.query.DataNode;
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.parser.EthQueryExecutor;
+import com.impetus.eth.query.EthColumns;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.test.util.PlanUtil;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestEthQueryExecutor extends TestCase {
+
+    @Test
+    public void testDataFrameHasReferencedColumnsOnly() {
+        BlockExecutor executor = new BlockExecutor("select hash, count(gasused) from block where blocknumber = 10 "
+                + "group by hash");
+        DataFrame df = executor.createDataFrame("0xa");
+        assertEquals(Arrays.asList(EthColumns.BLOCKNUMBER, EthColumns.HASH, EthColumns.GASUSED), df.getColumns());
+        assertEquals(Arrays.asList(new BigInteger("10"), "0x01", new BigInteger("21000")),
+                df.getData().get(0));
+    }
+
+    @Test
+    public void testCountStarBuildsFilterColumnOnly() {
+        BlockExecutor executor = new BlockExecutor("select count(*) from block where blocknumber = 10");
+        DataFrame df = executor.createDataFrame("0xa");
+        assertEquals(Arrays.asList(EthColumns.BLOCKNUMBER), df.getColumns());
+        assertEquals(1, df.getData().size());
+    }
+
+    @Test
+    public void testStreamableQueries() {
+        assertTrue(new BlockExecutor("select hash from block where blocknumber > 1 and blocknumber < 5")
+                .isStreamable());
+        assertTrue(new BlockExecutor("select * from block where blocknumber > 1 and blocknumber < 5 limit 2")
+                .isStreamable());
+        assertFalse(new BlockExecutor("select hash from block where blocknumber > 1 and blocknumber < 5 "
+                + "order by hash").isStreamable());
+        assertFalse(new BlockExecutor("select count(*) from block where blocknumber > 1 and blocknumber < 5")
+                .isStreamable());
+        assertFalse(new BlockExecutor("select hash from block where hash = 'abc'").isStreamable());
+    }
+
+    @Test
+    public void testScanWindows() {
+        BlockExecutor executor = new BlockExecutor("select hash from block where blocknumber >= 1 and blocknumber <= 6");
+        assertEquals(Arrays.asList(new Range<>(BigInteger.valueOf(1), BigInteger.valueOf(1)),
+                new Range<>(BigInteger.valueOf(2), BigInteger.valueOf(3)),
+                new Range<>(BigInteger.valueOf(4), BigInteger.valueOf(5)),
+                new Range<>(BigInteger.valueOf(6), BigInteger.valueOf(6))), windows(executor.getScanWindows(2)));
+    }
+
+    @Test
+    public void testScanRangesOfAndedRangesAreIntersected() {
+        // the filter between them keeps the parser from combining the two ranges itself
+        BlockExecutor executor = new BlockExecutor("select hash from block where blocknumber > 5 and gasused > 1 "
+                + "and blocknumber < 10");
+        assertEquals(Arrays.asList(new Range<>(BigInteger.valueOf(6), BigInteger.valueOf(9))),
+                executor.getScanRanges());
+        assertEquals(Arrays.asList(new Range<>(BigInteger.valueOf(6), BigInteger.valueOf(6)),
+                new Range<>(BigInteger.valueOf(7), BigInteger.valueOf(9))), windows(executor.getScanWindows(3)));
+        assertTrue(new BlockExecutor("select hash from block where blocknumber < 5 and gasused > 1 "
+                + "and blocknumber > 10").getScanRanges().isEmpty());
+    }
+
+    private static List<Range<BigInteger>> windows(Iterator<Range<BigInteger>> iterator) {
+        List<Range<BigInteger>> windows = new ArrayList<>();
+        iterator.forEachRemaining(windows::add);
+        return windows;
+    }
+
+    private static class BlockExecutor extends EthQueryExecutor {
+
+        BlockExecutor(String sqlText) {
+            super(PlanUtil.getLogicalPlan(sqlText), null, null);
+        }
+
+        DataFrame createDataFrame(String blockNumber) {
+            Block block = new Block();
+            block.setNumber(blockNumber);
+            block.setHash("0x01");
+            block.setGasUsed("0x5208");
+            dataMap.put(block.getNumber().toString(), block);
+            return createDataFrame(new DataNode<>(EthTables.BLOCK, Arrays.asList(block.getNumber().toString())));
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.impetus.eth.test;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,8 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import com.impetus.blkch.sql.DataFrame;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.columnar.ColumnType;
 import com.impetus.eth.jdbc.EthResultSet;
 import com.impetus.eth.jdbc.EthResultSetMetaData;
 import com.impetus.test.catagory.UnitTest;
@@ -174,6 +177,40 @@ public class TestEthResultSet extends TestCase {
         assertTrue(isfirst);
     }
 
+    @Test
+    public void testLabelsResolvedToColumns() throws SQLException {
+        ethResultSet.next();
+        assertEquals(544444, ethResultSet.getInt("val"));
+        assertEquals(544444, ethResultSet.getInt("value"));
+        assertEquals(15675, ethResultSet.getInt("blocknumber"));
+        // the cursor reads the row in place
+        data.get(1).set(1, 7);
+        ethResultSet.next();
+        assertEquals(7, ethResultSet.getInt("gas"));
+        try {
+            ethResultSet.getObject("nonce");
+            fail("Unknown column should fail");
+        } catch (RuntimeException e) {
+            assertEquals("Column: nonce is not a part of query", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIntOverflowOfColumnarValue() throws SQLException {
+        ColumnBatch rows = new ColumnBatch(Arrays.asList("gas"), new ColumnType[] { ColumnType.QUANTITY }, 1);
+        rows.setLong(rows.addRow(), 0, Integer.MAX_VALUE + 1L);
+        EthResultSet resultSet = new EthResultSet(new DataFrame(rows.asRows(), Arrays.asList("gas"), aliasMapping),
+                java.sql.ResultSet.FETCH_FORWARD, java.sql.ResultSet.CONCUR_READ_ONLY, table);
+        resultSet.next();
+        assertEquals(Integer.MAX_VALUE + 1L, resultSet.getLong("gas"));
+        try {
+            resultSet.getInt("gas");
+            fail("A value out of int range should fail");
+        } catch (SQLException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+    }
+
     @Test
     public void testEthResultSetIsAfterLast() {
         boolean isAfterLast = false;
@@ -0,0 +1,149 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.columnar.ColumnBatch;
+import com.impetus.eth.columnar.ColumnType;
+import com.impetus.eth.jdbc.EthStreamingResultSet;
+import com.impetus.eth.query.EthTables;
+import com.impetus.eth.test.util.WindowExecutor;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestEthStreamingResultSet extends TestCase {
+
+    @Test
+    public void testRowsInBlockOrder() throws Exception {
+        ResultSet rs = new EthStreamingResultSet(new WindowExecutor("select blocknumber as num from block "
+                + "where blocknumber >= 1 and blocknumber <= 5"), 2, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        List<Object> numbers = new ArrayList<>();
+        while (rs.next()) {
+            numbers.add(rs.getObject("num"));
+        }
+        assertEquals(Arrays.asList(BigInteger.valueOf(1), BigInteger.valueOf(2), BigInteger.valueOf(3),
+                BigInteger.valueOf(4), BigInteger.valueOf(5)), numbers);
+        rs.close();
+    }
+
+    @Test
+    public void testLimitStopsScan() throws Exception {
+        ResultSet rs = new EthStreamingResultSet(new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 100 limit 3"), 10, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            assertEquals(rows == 3, rs.isLast());
+        }
+        assertEquals(3, rows);
+        rs.close();
+    }
+
+    @Test
+    public void testIsLastKeepsColumnarRow() throws Exception {
+        ResultSet rs = new EthStreamingResultSet(new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 5") {
+            @Override
+            public DataFrame executeWindow(Range<BigInteger> window) {
+                ColumnBatch rows = new ColumnBatch(Arrays.asList("blocknumber"),
+                        new ColumnType[] { ColumnType.QUANTITY }, 2);
+                for (int i = window.getMin().intValue(); i <= window.getMax().intValue(); i++) {
+                    rows.setLong(rows.addRow(), 0, i);
+                }
+                return new DataFrame(rows.asRows(), Arrays.asList("blocknumber"), getColumnAliasMapping());
+            }
+        }, 2, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        for (int row = 1; row <= 5; row++) {
+            assertTrue(rs.next());
+            // at the end of a chunk isLast fetches the next one, the cursor stays on the current row
+            assertEquals(row == 5, rs.isLast());
+            assertEquals(row, rs.getLong("blocknumber"));
+            assertEquals(BigInteger.valueOf(row), rs.getObject(1));
+        }
+        assertFalse(rs.next());
+        rs.close();
+    }
+
+    @Test
+    public void testDroppedResultSetStopsProducer() throws Exception {
+        Set<Thread> running = streamThreads();
+        ResultSet rs = new EthStreamingResultSet(new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 1000000"), 1, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        assertTrue(rs.next());
+        Set<Thread> started = streamThreads();
+        started.removeAll(running);
+        assertEquals(1, started.size());
+        Thread producer = started.iterator().next();
+
+        rs = null;
+        long deadline = System.currentTimeMillis() + 20000;
+        while (producer.isAlive() && System.currentTimeMillis() < deadline) {
+            System.gc();
+            producer.join(100);
+        }
+        assertFalse(producer.isAlive());
+    }
+
+    private static Set<Thread> streamThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("eth-result-stream") && thread.isAlive()) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    @Test
+    public void testFetchErrorSurfacesOnNext() throws Exception {
+        ResultSet rs = new EthStreamingResultSet(new WindowExecutor("select blocknumber from block "
+                + "where blocknumber >= 1 and blocknumber <= 10") {
+            @Override
+            public DataFrame executeWindow(Range<BigInteger> window) {
+                if (window.getMin().intValue() > 1) {
+                    throw new IllegalStateException("node went away");
+                }
+                return super.executeWindow(window);
+            }
+        }, 4, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, EthTables.BLOCK);
+        assertTrue(rs.next());
+        try {
+            rs.next();
+            fail("Expected the fetch error");
+        } catch (SQLException e) {
+            assertEquals("node went away", e.getCause().getMessage());
+        }
+        rs.close();
+    }
+}
@@ -0,0 +1,101 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.eth.parser.EthQueryExecutor;
+import com.impetus.eth.test.util.PlanUtil;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestHashLookups extends TestCase {
+
+    private static final Pattern HASH_PARAM = Pattern.compile("\"params\":\\[\"(0x[0-9a-f]+)\"");
+
+    private HttpServer server;
+
+    private AtomicInteger requestCount = new AtomicInteger();
+
+    private Web3j web3j;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[1024];
+                for (int read; (read = in.read(buffer)) > 0;) {
+                    request.write(buffer, 0, read);
+                }
+            }
+            Matcher matcher = HASH_PARAM.matcher(new String(request.toByteArray(), StandardCharsets.UTF_8));
+            String result = "null";
+            if (matcher.find() && !matcher.group(1).equals("0xdead")) {
+                result = "{\"hash\":\"" + matcher.group(1) + "\",\"blockNumber\":\"0x1\",\"gas\":\"0x5208\"}";
+            }
+            byte[] body = ("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":" + result + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        web3j = Web3j.build(new HttpService("http://localhost:" + server.getAddress().getPort()));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testDuplicateHashesAreFetchedOnceInQueryOrder() {
+        DataFrame dataFrame = new EthQueryExecutor(PlanUtil.getLogicalPlan(
+                "select hash from transaction where hash = '0xb' or hash = '0xa' or hash = '0xb'"), web3j, null)
+                        .executeQuery();
+        assertEquals(Arrays.asList(Arrays.asList("0xb"), Arrays.asList("0xa")), dataFrame.getData());
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testUnknownHashGivesNoRow() {
+        List<List<Object>> data = new EthQueryExecutor(PlanUtil.getLogicalPlan(
+                "select hash from transaction where hash = '0xdead' or hash = '0xa'"), web3j, null).executeQuery()
+                        .getData();
+        assertEquals(Arrays.asList(Arrays.asList("0xa")), data);
+    }
+}
@@ -0,0 +1,128 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.http.HttpService;
+
+import com.impetus.eth.cache.BlockCache;
+import com.impetus.eth.cache.HeadTracker;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestHeadTracker extends TestCase {
+
+    private HttpServer server;
+
+    private AtomicInteger requestCount = new AtomicInteger();
+
+    private volatile String reply;
+
+    private Web3j web3j;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        web3j = Web3j.build(new HttpService("http://localhost:" + server.getAddress().getPort()));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testHeightIsReadOnceWithinStaleness() throws IOException {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x64\"}";
+        HeadTracker tracker = new HeadTracker(web3j, null, 60000);
+        assertEquals(BigInteger.valueOf(100), tracker.getHeight());
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x65\"}";
+        assertEquals(BigInteger.valueOf(100), tracker.getHeight());
+        assertEquals(1, requestCount.get());
+        assertEquals(BigInteger.valueOf(101), tracker.refresh());
+    }
+
+    @Test
+    public void testZeroStalenessReadsEveryTime() throws IOException {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x64\"}";
+        HeadTracker tracker = new HeadTracker(web3j, null, 0);
+        tracker.getHeight();
+        tracker.getHeight();
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testHeadBlockAdvancesCache() throws IOException {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"number\":\"0x64\",\"hash\":\"0x0a\","
+                + "\"parentHash\":\"0x09\",\"transactions\":[],\"uncles\":[]}}";
+        BlockCache cache = new BlockCache(10, 10, 2);
+        HeadTracker tracker = new HeadTracker(web3j, cache, 60000);
+        assertEquals(BigInteger.valueOf(100), tracker.getHeight());
+        assertEquals(BigInteger.valueOf(100), cache.getHeadNumber());
+    }
+
+    @Test
+    public void testPushedHeadIsTakenWithoutReading() throws IOException {
+        BlockCache cache = new BlockCache(10, 10, 2);
+        HeadTracker tracker = new HeadTracker(web3j, cache, 60000);
+        Block header = new Block();
+        header.setNumber("0x80");
+        header.setHash("0x0b");
+        header.setParentHash("0x0a");
+        tracker.onNewHead(header);
+        assertEquals(BigInteger.valueOf(128), tracker.getHeight());
+        assertEquals(BigInteger.valueOf(128), cache.getHeadNumber());
+        assertEquals(0, requestCount.get());
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws Exception {
+        reply = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x64\"}";
+        HeadTracker tracker = new HeadTracker(web3j, null, 20);
+        tracker.startBackgroundRefresh();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (requestCount.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(requestCount.get() >= 3);
+        } finally {
+            tracker.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.HedgedService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestHedgedService extends TestCase {
+
+    private static final String HASH = "0x5e7e1f3b3a9d2c6f7e8a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f6a";
+
+    private HttpServer server;
+
+    private ExecutorService serverThreads;
+
+    private final AtomicBoolean stallNext = new AtomicBoolean();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private HedgedService service;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            calls.incrementAndGet();
+            if (stallNext.compareAndSet(true, false)) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":null}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        service = new HedgedService(new EthHttpService("http://localhost:" + server.getAddress().getPort(),
+                new HttpTransportConfig(4, 1000, 5000, 30000, true)), 90, 500);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        service.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testSlowReadIsHedged() throws IOException {
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 40; i++) {
+            web3j.ethGetTransactionByHash(HASH).send();
+        }
+        assertEquals(0, service.getHedgesSent());
+
+        stallNext.set(true);
+        long start = System.currentTimeMillis();
+        web3j.ethGetTransactionByHash(HASH).send();
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, service.getHedgesSent());
+        assertEquals(1, service.getHedgesWon());
+        assertEquals(42, calls.get());
+    }
+
+    @Test
+    public void testStateCallsAreNotHedged() throws IOException {
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 40; i++) {
+            web3j.ethGetTransactionByHash(HASH).send();
+        }
+        stallNext.set(true);
+        web3j.ethSendRawTransaction("0x00").send();
+        assertEquals(0, service.getHedgesSent());
+        assertEquals(41, calls.get());
+    }
+}
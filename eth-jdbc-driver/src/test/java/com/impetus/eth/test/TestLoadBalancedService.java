@@ -0,0 +1,196 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.eth.rpc.LoadBalancedService;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestLoadBalancedService extends TestCase {
+
+    private static final String REPLY = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x64\"}";
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (Node node : nodes) {
+            node.server.stop(0);
+        }
+    }
+
+    @Test
+    public void testCallsAreSpreadOverHealthyNodes() throws IOException {
+        LoadBalancedService service = balance(60000, node(), node());
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(BigInteger.valueOf(100), web3j.ethBlockNumber().send().getBlockNumber());
+        }
+        assertTrue(nodes.get(0).calls.get() > 10);
+        assertTrue(nodes.get(1).calls.get() > 10);
+        service.close();
+    }
+
+    @Test
+    public void testFailingNodeIsEjected() throws Exception {
+        Node failing = node();
+        failing.status = 500;
+        LoadBalancedService service = balance(0, failing, node());
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(BigInteger.valueOf(100), web3j.ethBlockNumber().send().getBlockNumber());
+        }
+        assertEquals(Arrays.asList(nodes.get(1).url), service.getHealthyEndpoints());
+        assertEquals(3, failing.calls.get());
+        service.close();
+    }
+
+    @Test
+    public void testEjectedNodeIsTakenBackAfterHealthCheck() throws Exception {
+        Node failing = node();
+        failing.status = 500;
+        LoadBalancedService service = balance(50, 2000, failing, node());
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 20; i++) {
+            web3j.ethBlockNumber().send();
+        }
+        assertEquals(1, service.getHealthyEndpoints().size());
+
+        // the node answers again, it is only checked once its ejection is over
+        failing.status = 200;
+        int calls = failing.calls.get();
+        Thread.sleep(500);
+        assertEquals(1, service.getHealthyEndpoints().size());
+        assertEquals(calls, failing.calls.get());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getHealthyEndpoints().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, service.getHealthyEndpoints().size());
+        service.close();
+    }
+
+    @Test
+    public void testFailedHealthCheckExtendsEjection() throws Exception {
+        Node failing = node();
+        failing.status = 500;
+        LoadBalancedService service = balance(20, 300, failing, node());
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 20; i++) {
+            web3j.ethBlockNumber().send();
+        }
+        int calls = failing.calls.get();
+        Thread.sleep(1000);
+        assertEquals(Arrays.asList(nodes.get(1).url), service.getHealthyEndpoints());
+        // one check per ejection instead of one per health check interval
+        int checks = failing.calls.get() - calls;
+        assertTrue("checks: " + checks, checks >= 1 && checks <= 4);
+        service.close();
+    }
+
+    @Test
+    public void testFailedTransactionIsNotSentToAnotherNode() throws IOException {
+        Node failing = node();
+        failing.status = 500;
+        LoadBalancedService service = balance(0, failing, node());
+        Web3j web3j = Web3j.build(service);
+        try {
+            web3j.ethSendRawTransaction("0xf86b").send();
+            fail("The transaction should have failed");
+        } catch (IOException e) {
+            assertEquals(1, failing.calls.get());
+            assertEquals(0, nodes.get(1).calls.get());
+        }
+        service.close();
+    }
+
+    @Test
+    public void testWritesStayOnFirstHealthyNode() throws IOException {
+        LoadBalancedService service = balance(60000, node(), node());
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 20; i++) {
+            web3j.ethGetTransactionCount("0x8d12a197cb00d4747a1fe03395095ce2a5cc6819",
+                    DefaultBlockParameterName.PENDING).send();
+            web3j.ethSendRawTransaction("0xf86b").send();
+        }
+        assertEquals(40, nodes.get(0).calls.get());
+        assertEquals(0, nodes.get(1).calls.get());
+        service.close();
+    }
+
+    private LoadBalancedService balance(long healthCheckMillis, Node... balanced) {
+        return balance(healthCheckMillis, 60000, balanced);
+    }
+
+    private LoadBalancedService balance(long healthCheckMillis, long ejectionMillis, Node... balanced) {
+        List<EthHttpService> services = new ArrayList<>();
+        for (Node node : balanced) {
+            services.add(new EthHttpService(node.url, new HttpTransportConfig(2, 1000, 1000, 30000, true)));
+        }
+        return new LoadBalancedService(services, healthCheckMillis, ejectionMillis);
+    }
+
+    private Node node() throws IOException {
+        Node node = new Node();
+        nodes.add(node);
+        return node;
+    }
+
+    private static class Node {
+
+        private final HttpServer server;
+
+        private final String url;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile int status = 200;
+
+        Node() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                calls.incrementAndGet();
+                byte[] body = REPLY.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            url = "http://localhost:" + server.getAddress().getPort();
+        }
+    }
+}
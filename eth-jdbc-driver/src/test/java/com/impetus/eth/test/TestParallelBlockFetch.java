@@ -0,0 +1,291 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.impetus.blkch.BlkchnException;
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.eth.jdbc.DriverConstants;
+import com.impetus.eth.jdbc.EthConnection;
+import com.impetus.eth.parser.EthQueryExecutor;
+import com.impetus.eth.test.util.PlanUtil;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestParallelBlockFetch extends TestCase {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String RANGE_QUERY = "select blocknumber, hash from block "
+            + "where blocknumber >= 1 and blocknumber <= 40";
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private boolean rejectBatches;
+
+    private int failingBlock;
+
+    private static volatile int lastBlock = Integer.MAX_VALUE;
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Integer> singleBlocks = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = MAPPER.readTree(in);
+            }
+            int status = 200;
+            JsonNode reply;
+            int running = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(running, Math::max);
+            try {
+                if (request.isArray() && rejectBatches) {
+                    ObjectNode rejection = MAPPER.createObjectNode();
+                    rejection.put("jsonrpc", "2.0");
+                    rejection.putNull("id");
+                    rejection.putObject("error").put("code", -32600).put("message", "batch not supported");
+                    reply = rejection;
+                } else if (request.isArray()) {
+                    batchSizes.add(request.size());
+                    ArrayNode replies = MAPPER.createArrayNode();
+                    for (JsonNode call : request) {
+                        replies.add(reply(call));
+                        status = failing(call) ? 500 : status;
+                    }
+                    // the first blocks come in last, so the later halves of a split are done before the earlier
+                    slowDown(request.get(0));
+                    reply = replies;
+                } else {
+                    if (isBlockCall(request)) {
+                        singleBlocks.add(Integer.decode(request.get("params").get(0).asText()));
+                    }
+                    status = failing(request) ? 500 : status;
+                    slowDown(request);
+                    reply = reply(request);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            byte[] body = MAPPER.writeValueAsBytes(reply);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        lastBlock = Integer.MAX_VALUE;
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static boolean isBlockCall(JsonNode call) {
+        return call.get("method").asText().equals("eth_getBlockByNumber")
+                && !call.get("params").get(0).asText().equals("latest");
+    }
+
+    private boolean failing(JsonNode call) {
+        return isBlockCall(call) && Integer.decode(call.get("params").get(0).asText()) == failingBlock;
+    }
+
+    private static void slowDown(JsonNode call) {
+        if (isBlockCall(call) && Integer.decode(call.get("params").get(0).asText()) <= 20) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Answers the calls of the driver from a chain of 256 blocks without transactions, none above lastBlock.
+     */
+    private static JsonNode reply(JsonNode call) {
+        ObjectNode reply = MAPPER.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", call.get("id"));
+        switch (call.get("method").asText()) {
+            case "web3_clientVersion":
+                reply.put("result", "test");
+                break;
+            case "eth_blockNumber":
+                reply.put("result", "0x100");
+                break;
+            case "eth_getBlockByNumber":
+                String number = call.get("params").get(0).asText();
+                int blockNumber = number.equals("latest") ? 0x100 : Integer.decode(number);
+                if (blockNumber > lastBlock) {
+                    reply.putNull("result");
+                } else {
+                    reply.set("result", block(blockNumber));
+                }
+                break;
+            default:
+                reply.putObject("error").put("code", -32601).put("message", "method not found");
+        }
+        return reply;
+    }
+
+    private static ObjectNode block(int number) {
+        ObjectNode block = MAPPER.createObjectNode();
+        block.put("number", "0x" + Integer.toHexString(number));
+        block.put("hash", hash(number));
+        block.put("parentHash", hash(number - 1));
+        block.put("gasLimit", "0x47e7c4");
+        block.put("gasUsed", "0x0");
+        block.put("timestamp", "0x5a0b3c1d");
+        block.putArray("transactions");
+        return block;
+    }
+
+    private static String hash(int number) {
+        return String.format("0x%064x", number);
+    }
+
+    private EthConnection connect() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty(DriverConstants.HOSTNAME, "localhost");
+        props.setProperty(DriverConstants.PORTNUMBER, Integer.toString(server.getAddress().getPort()));
+        props.setProperty(DriverConstants.COLUMNAR_DECODE, "false");
+        props.setProperty(DriverConstants.FETCH_PARALLELISM, "4");
+        props.setProperty(DriverConstants.BATCH_SIZE, "4");
+        props.setProperty(DriverConstants.RPC_MAX_RETRIES, "0");
+        return new EthConnection("jdbc:blkchn:ethereum://localhost:" + server.getAddress().getPort(), props);
+    }
+
+    private static DataFrame query(EthConnection connection, String sql) {
+        return new EthQueryExecutor(PlanUtil.getLogicalPlan(sql), connection).executeQuery();
+    }
+
+    private static void assertBlocksInOrder(DataFrame frame) {
+        List<List<Object>> rows = frame.getData();
+        assertEquals(40, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(BigInteger.valueOf(i + 1), rows.get(i).get(0));
+            assertEquals(hash(i + 1), rows.get(i).get(1));
+        }
+    }
+
+    @Test
+    public void testBlocksInOrderAcrossSplits() throws SQLException {
+        EthConnection connection = connect();
+        try {
+            assertBlocksInOrder(query(connection, RANGE_QUERY));
+            int fetched = 0;
+            for (int size : batchSizes) {
+                assertTrue(size <= 4);
+                fetched += size;
+            }
+            assertEquals(40, fetched);
+            assertTrue(maxInFlight.get() > 1);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testSplitsWhenBatchesRejected() throws SQLException {
+        rejectBatches = true;
+        EthConnection connection = connect();
+        try {
+            assertBlocksInOrder(query(connection, RANGE_QUERY));
+            assertTrue(batchSizes.isEmpty());
+            List<Integer> fetched = new ArrayList<>(singleBlocks);
+            Collections.sort(fetched);
+            for (int i = 0; i < fetched.size(); i++) {
+                assertEquals(i + 1, fetched.get(i).intValue());
+            }
+            assertEquals(40, fetched.size());
+            assertTrue(maxInFlight.get() > 1);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testMissingBlockNamedInError() throws SQLException {
+        lastBlock = 35;
+        EthConnection connection = connect();
+        try {
+            query(connection, RANGE_QUERY);
+            fail("The missing blocks should have failed the query");
+        } catch (BlkchnException e) {
+            assertTrue(e.getMessage().startsWith("Error query block by number range"));
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().matches(".*Block (3[6-9]|40) not found"));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testFailedSplitReachesCaller() throws SQLException {
+        failingBlock = 29;
+        EthConnection connection = connect();
+        try {
+            query(connection, RANGE_QUERY);
+            fail("The failed batch should have failed the query");
+        } catch (BlkchnException e) {
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof IOException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause);
+            assertTrue(cause.getMessage().contains("500"));
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.impetus.eth.rpc.PipelinedIpcService;
+import com.impetus.test.catagory.UnitTest;
+
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestPipelinedIpcService extends TestCase {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private File dir;
+
+    private String path;
+
+    private UnixServerSocketChannel server;
+
+    private volatile UnixSocketChannel peer;
+
+    private final BlockingQueue<JsonNode> received = new ArrayBlockingQueue<>(100);
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("ipc").toFile();
+        path = new File(dir, "geth.ipc").getPath();
+        server = UnixServerSocketChannel.open();
+        server.socket().bind(new UnixSocketAddress(new File(path)));
+        Thread serverThread = new Thread(this::serve);
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.close();
+        new File(path).delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testCallsArePipelinedOnOneSocket() throws Exception {
+        PipelinedIpcService service = new PipelinedIpcService(path, 5000);
+        Web3j web3j = Web3j.build(service);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<BigInteger> first = callers.submit(() -> web3j
+                .ethGetBalance("0x0000000000000000000000000000000000000001", DefaultBlockParameterName.LATEST)
+                .send().getBalance());
+        Future<BigInteger> second = callers.submit(() -> web3j
+                .ethGetBalance("0x0000000000000000000000000000000000000002", DefaultBlockParameterName.LATEST)
+                .send().getBalance());
+
+        // both calls are on the socket before either is answered, the later one is answered first
+        JsonNode one = received.poll(5, TimeUnit.SECONDS);
+        JsonNode two = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(two);
+        reply(two);
+        reply(one);
+
+        assertEquals(BigInteger.ONE, first.get(5, TimeUnit.SECONDS));
+        assertEquals(BigInteger.valueOf(2), second.get(5, TimeUnit.SECONDS));
+        callers.shutdown();
+        service.close();
+    }
+
+    @Test
+    public void testBatchIsAnsweredByIds() throws Exception {
+        PipelinedIpcService service = new PipelinedIpcService(path, 5000);
+        Web3j web3j = Web3j.build(service);
+        List<Request<?, EthGetBalance>> requests = Arrays.asList(
+                web3j.ethGetBalance("0x0000000000000000000000000000000000000003", DefaultBlockParameterName.LATEST),
+                web3j.ethGetBalance("0x0000000000000000000000000000000000000004", DefaultBlockParameterName.LATEST));
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<List<EthGetBalance>> batch = caller.submit(() -> service.sendBatch(requests, EthGetBalance.class));
+
+        JsonNode calls = received.poll(5, TimeUnit.SECONDS);
+        assertTrue(calls.isArray());
+        reply(calls.get(1));
+        reply(calls.get(0));
+
+        List<EthGetBalance> balances = batch.get(5, TimeUnit.SECONDS);
+        assertEquals(BigInteger.valueOf(3), balances.get(0).getBalance());
+        assertEquals(BigInteger.valueOf(4), balances.get(1).getBalance());
+        caller.shutdown();
+        service.close();
+    }
+
+    private void reply(JsonNode call) throws IOException {
+        String address = call.get("params").get(0).asText();
+        ObjectNode reply = MAPPER.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", call.get("id"));
+        reply.put("result", "0x" + address.substring(address.length() - 1));
+        ByteBuffer buffer = ByteBuffer.wrap((MAPPER.writeValueAsString(reply) + "\n").getBytes("UTF-8"));
+        while (buffer.hasRemaining()) {
+            peer.write(buffer);
+        }
+    }
+
+    private void serve() {
+        try {
+            peer = server.accept();
+            InputStream in = new InputStream() {
+
+                @Override
+                public int read() throws IOException {
+                    byte[] single = new byte[1];
+                    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    return peer.read(ByteBuffer.wrap(bytes, offset, length));
+                }
+            };
+            JsonParser calls = MAPPER.getFactory().createParser(in);
+            while (calls.nextToken() != null) {
+                received.add(MAPPER.readTree(calls));
+            }
+        } catch (Exception e) {
+            // socket closed by the test
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+
+import com.impetus.eth.rpc.CircuitBreaker;
+import com.impetus.eth.rpc.CircuitOpenException;
+import com.impetus.eth.rpc.EthHttpService;
+import com.impetus.eth.rpc.HttpTransportConfig;
+import com.impetus.eth.rpc.RetryingService;
+import com.impetus.test.catagory.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestRetryingService extends TestCase {
+
+    private static final String HASH = "0x5e7e1f3b3a9d2c6f7e8a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f6a";
+
+    private HttpServer server;
+
+    private String url;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private volatile int failuresLeft;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            calls.incrementAndGet();
+            int status = 200;
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                status = 503;
+            }
+            byte[] body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":null}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testReadIsRetriedAfterTransientFailures() throws IOException {
+        failuresLeft = 2;
+        RetryingService service = new RetryingService(new EthHttpService(url, config()), 3, 5, 50);
+        Web3j.build(service).ethGetTransactionByHash(HASH).send();
+        assertEquals(3, calls.get());
+        assertEquals(2, service.getRetries());
+        service.close();
+    }
+
+    @Test
+    public void testRetriesAreBounded() throws IOException {
+        failuresLeft = 10;
+        RetryingService service = new RetryingService(new EthHttpService(url, config()), 2, 5, 50);
+        try {
+            Web3j.build(service).ethGetTransactionByHash(HASH).send();
+            fail("Call should fail once the retries are used up");
+        } catch (IOException e) {
+            assertEquals(3, calls.get());
+        }
+        service.close();
+    }
+
+    @Test
+    public void testStateChangeIsNotRetried() throws IOException {
+        failuresLeft = 1;
+        RetryingService service = new RetryingService(new EthHttpService(url, config()), 3, 5, 50);
+        try {
+            Web3j.build(service).ethSendRawTransaction("0x00").send();
+            fail("Call should fail without retry");
+        } catch (IOException e) {
+            assertEquals(1, calls.get());
+        }
+        service.close();
+    }
+
+    @Test
+    public void testOpenCircuitFailsFastUntilTrialSucceeds() throws Exception {
+        failuresLeft = 3;
+        CircuitBreaker circuitBreaker = new CircuitBreaker(url, 3, 100);
+        EthHttpService service = new EthHttpService(url, config(), null, circuitBreaker);
+        Web3j web3j = Web3j.build(service);
+        for (int i = 0; i < 3; i++) {
+            try {
+                web3j.ethBlockNumber().send();
+                fail("Call should fail");
+            } catch (IOException e) {
+                assertFalse(e instanceof CircuitOpenException);
+            }
+        }
+        assertTrue(circuitBreaker.isOpen());
+        try {
+            web3j.ethBlockNumber().send();
+            fail("Call should be turned down while the circuit is open");
+        } catch (CircuitOpenException e) {
+            assertEquals(3, calls.get());
+        }
+
+        Thread.sleep(150);
+        web3j.ethBlockNumber().send();
+        assertFalse(circuitBreaker.isOpen());
+        assertEquals(4, calls.get());
+        service.close();
+    }
+
+    private static HttpTransportConfig config() {
+        return new HttpTransportConfig(2, 1000, 1000, 30000, true);
+    }
+}
@@ -0,0 +1,74 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.impetus.eth.cache.TinyLfuCache;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestTinyLfuCache extends TestCase {
+
+    @Test
+    public void testSizeBound() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(String.valueOf(i), cache.get(i));
+            }
+        }
+        for (int i = 1000; i < 11000; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        int survivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(i) != null) {
+                survivors++;
+            }
+        }
+        assertTrue(survivors >= 45);
+    }
+
+    @Test
+    public void testHitAndMissCounters() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.peek("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.invalidate("a");
+        assertNull(cache.peek("a"));
+    }
+}
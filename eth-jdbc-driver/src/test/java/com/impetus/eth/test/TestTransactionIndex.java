@@ -0,0 +1,86 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionHash;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionObject;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+
+import com.impetus.eth.cache.TransactionIndex;
+import com.impetus.eth.cache.TransactionIndex.TransactionPosition;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestTransactionIndex extends TestCase {
+
+    @Test
+    public void testTransactionsByBlockAndHash() {
+        TransactionIndex index = new TransactionIndex(10);
+        index.putBlock(block(7, 3));
+        assertEquals(3, index.getTransactions(BigInteger.valueOf(7)).size());
+        assertEquals("0x7-2", index.getTransactions(BigInteger.valueOf(7)).get(2).getHash());
+        TransactionPosition position = index.getPosition("0x7-1");
+        assertEquals(BigInteger.valueOf(7), position.getBlockNumber());
+        assertEquals(1, position.getIndex());
+        assertEquals("0x7-1", index.getTransaction("0x7-1").getHash());
+        assertNull(index.getTransactions(BigInteger.valueOf(8)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBlockIsEvicted() {
+        TransactionIndex index = new TransactionIndex(2);
+        index.putBlock(block(1, 2));
+        index.putBlock(block(2, 2));
+        index.getTransactions(BigInteger.ONE);
+        index.putBlock(block(3, 2));
+        assertTrue(index.containsBlock(BigInteger.ONE));
+        assertFalse(index.containsBlock(BigInteger.valueOf(2)));
+        assertNull(index.getPosition("0x2-0"));
+        assertEquals(4, index.getTransactionCount());
+    }
+
+    @Test
+    public void testHeaderOnlyBlockIsIgnored() {
+        TransactionIndex index = new TransactionIndex(2);
+        Block block = block(4, 0);
+        block.setTransactions(Arrays.asList(new TransactionHash("0x4-0")));
+        index.putBlock(block);
+        assertEquals(0, index.getBlockCount());
+    }
+
+    private static Block block(int number, int transactionCount) {
+        Block block = new Block();
+        block.setNumber("0x" + Integer.toHexString(number));
+        List<TransactionResult> transactions = new ArrayList<>();
+        for (int i = 0; i < transactionCount; i++) {
+            TransactionObject txn = new TransactionObject();
+            txn.setHash("0x" + number + "-" + i);
+            transactions.add(txn);
+        }
+        block.setTransactions(transactions);
+        return block;
+    }
+}
@@ -0,0 +1,84 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.http.HttpService;
+
+import com.impetus.eth.rpc.Web3jRegistry;
+import com.impetus.eth.rpc.Web3jRegistry.Lease;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestWeb3jRegistry extends TestCase {
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    public void testClientIsSharedAndClosedWithLastLease() throws IOException {
+        Lease first = Web3jRegistry.acquire("http test-endpoint", this::createService);
+        Lease second = Web3jRegistry.acquire("http test-endpoint", this::createService);
+        assertSame(first.getWeb3j(), second.getWeb3j());
+        assertEquals(1, created.get());
+        assertEquals(2, Web3jRegistry.getReferenceCount("http test-endpoint"));
+
+        first.release();
+        first.release();
+        assertEquals(1, Web3jRegistry.getReferenceCount("http test-endpoint"));
+        assertEquals(0, closed.get());
+
+        second.release();
+        assertEquals(0, Web3jRegistry.getReferenceCount("http test-endpoint"));
+        assertEquals(1, closed.get());
+
+        Lease third = Web3jRegistry.acquire("http test-endpoint", this::createService);
+        assertEquals(2, created.get());
+        third.release();
+    }
+
+    @Test
+    public void testTransportsAreKeptApart() throws IOException {
+        Lease http = Web3jRegistry.acquire("http other-endpoint", this::createService);
+        Lease ipc = Web3jRegistry.acquire("unix-ipc other-endpoint", this::createService);
+        assertNotSame(http.getWeb3j(), ipc.getWeb3j());
+        http.release();
+        ipc.release();
+        assertEquals(2, closed.get());
+    }
+
+    private Web3jService createService() {
+        created.incrementAndGet();
+        return new ClosableService();
+    }
+
+    private class ClosableService extends HttpService implements Closeable {
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
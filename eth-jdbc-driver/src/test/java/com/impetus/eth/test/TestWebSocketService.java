@@ -0,0 +1,255 @@
+/******************************************************************************* 
+* * Copyright 2018 Impetus Infotech.
+* *
+* * Licensed under the Apache License, Version 2.0 (the "License");
+* * you may not use this file except in compliance with the License.
+* * You may obtain a copy of the License at
+* *
+* * http://www.apache.org/licenses/LICENSE-2.0
+* *
+* * Unless required by applicable law or agreed to in writing, software
+* * distributed under the License is distributed on an "AS IS" BASIS,
+* * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* * See the License for the specific language governing permissions and
+* * limitations under the License.
+******************************************************************************/
+package com.impetus.eth.test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.impetus.eth.rpc.WebSocketService;
+import com.impetus.test.catagory.UnitTest;
+
+import junit.framework.TestCase;
+
+@Category(UnitTest.class)
+public class TestWebSocketService extends TestCase {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ServerSocket serverSocket;
+
+    private Socket socket;
+
+    private Thread serverThread;
+
+    private final BlockingQueue<JsonNode> received = new ArrayBlockingQueue<>(100);
+
+    @Override
+    protected void setUp() throws Exception {
+        serverSocket = new ServerSocket(0);
+        serverThread = new Thread(this::serve);
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        serverSocket.close();
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testCallsInFlightAreMatchedById() throws Exception {
+        WebSocketService service = new WebSocketService(url(), 1000, 5000);
+        Web3j web3j = Web3j.build(service);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<BigInteger> first = callers.submit(() -> web3j
+                .ethGetBalance("0x0000000000000000000000000000000000000001", DefaultBlockParameterName.LATEST)
+                .send().getBalance());
+        Future<BigInteger> second = callers.submit(() -> web3j
+                .ethGetBalance("0x0000000000000000000000000000000000000002", DefaultBlockParameterName.LATEST)
+                .send().getBalance());
+
+        // both calls have to be on the wire before either is answered, the later one is answered first
+        JsonNode one = received.poll(5, TimeUnit.SECONDS);
+        JsonNode two = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(two);
+        reply(two, balanceOf(two));
+        reply(one, balanceOf(one));
+
+        assertEquals(BigInteger.ONE, first.get(5, TimeUnit.SECONDS));
+        assertEquals(BigInteger.valueOf(2), second.get(5, TimeUnit.SECONDS));
+        callers.shutdown();
+        service.close();
+    }
+
+    @Test
+    public void testCertificateForOtherHostRefused() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream in = getClass().getResourceAsStream("/other-host.jks")) {
+            keyStore.load(in, "changeit".toCharArray());
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(keyStore, "changeit".toCharArray());
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keys.getKeyManagers(), null, null);
+        TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trust.init(keyStore);
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trust.getTrustManagers(), null);
+
+        // the certificate is trusted, but it is for other.example and not for localhost
+        SSLContext defaultContext = SSLContext.getDefault();
+        try (ServerSocket tlsServer = serverContext.getServerSocketFactory().createServerSocket(0)) {
+            Thread server = new Thread(() -> {
+                try (Socket accepted = tlsServer.accept()) {
+                    ((SSLSocket) accepted).startHandshake();
+                    accepted.getInputStream().read();
+                } catch (IOException e) {
+                    // the client drops the handshake
+                }
+            });
+            server.setDaemon(true);
+            server.start();
+            SSLContext.setDefault(clientContext);
+            try {
+                new WebSocketService("wss://localhost:" + tlsServer.getLocalPort(), 1000, 5000).close();
+                fail("Certificate for another host should be refused");
+            } catch (SSLHandshakeException e) {
+                // expected
+            } finally {
+                SSLContext.setDefault(defaultContext);
+            }
+        }
+    }
+
+    @Test
+    public void testNewHeadsArePushedToSubscriber() throws Exception {
+        WebSocketService service = new WebSocketService(url(), 1000, 5000);
+        BlockingQueue<JsonNode> heads = new ArrayBlockingQueue<>(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<WebSocketService.Subscription> subscribing = caller
+                .submit(() -> service.subscribe(heads::add, "newHeads"));
+        JsonNode subscribe = received.poll(5, TimeUnit.SECONDS);
+        assertEquals("eth_subscribe", subscribe.get("method").asText());
+        assertEquals("newHeads", subscribe.get("params").get(0).asText());
+        reply(subscribe, "0xcafe");
+        assertEquals("0xcafe", subscribing.get(5, TimeUnit.SECONDS).getId());
+
+        send("{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\"0xcafe\","
+                + "\"result\":{\"number\":\"0x10\",\"hash\":\"0xab\"}}}");
+        JsonNode head = heads.poll(5, TimeUnit.SECONDS);
+        assertEquals("0x10", head.get("number").asText());
+        caller.shutdown();
+        service.close();
+    }
+
+    private String url() {
+        return "ws://localhost:" + serverSocket.getLocalPort() + "/";
+    }
+
+    private static String balanceOf(JsonNode call) {
+        String address = call.get("params").get(0).asText();
+        return "0x" + address.substring(address.length() - 1);
+    }
+
+    private void reply(JsonNode call, String result) throws IOException {
+        ObjectNode reply = MAPPER.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", call.get("id"));
+        reply.put("result", result);
+        send(MAPPER.writeValueAsString(reply));
+    }
+
+    private synchronized void send(String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private void serve() {
+        try {
+            socket = serverSocket.accept();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            List<String> header = new ArrayList<>();
+            for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                header.add(line);
+            }
+            String key = null;
+            for (String line : header) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII));
+            String response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n\r\n";
+            socket.getOutputStream().write(response.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            // the client sends nothing before the upgrade is acknowledged, so the reader holds no frame bytes
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (true) {
+                int first = in.readUnsignedByte();
+                int second = in.readUnsignedByte();
+                int length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = (int) in.readLong();
+                }
+                byte[] mask = new byte[4];
+                in.readFully(mask);
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                for (int i = 0; i < length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+                if ((first & 0x0F) == 0x8) {
+                    return;
+                }
+                received.add(MAPPER.readTree(payload));
+            }
+        } catch (Exception e) {
+            // connection closed by the test
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.impetus.eth.test.util;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import com.impetus.blkch.sql.generated.BlkchnSqlLexer;
+import com.impetus.blkch.sql.generated.BlkchnSqlParser;
+import com.impetus.blkch.sql.parser.AbstractSyntaxTreeVisitor;
+import com.impetus.blkch.sql.parser.BlockchainVisitor;
+import com.impetus.blkch.sql.parser.CaseInsensitiveCharStream;
+import com.impetus.blkch.sql.parser.LogicalPlan;
+
+public class PlanUtil
+{
+    public static LogicalPlan getLogicalPlan(String sqlText)
+    {
+        BlkchnSqlLexer lexer = new BlkchnSqlLexer(new CaseInsensitiveCharStream(sqlText));
+        BlkchnSqlParser parser = new BlkchnSqlParser(new CommonTokenStream(lexer));
+        AbstractSyntaxTreeVisitor astBuilder = new BlockchainVisitor();
+        return (LogicalPlan) astBuilder.visitSingleStatement(parser.singleStatement());
+    }
+}
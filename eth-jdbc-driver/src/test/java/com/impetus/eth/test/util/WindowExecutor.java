@@ -0,0 +1,41 @@
+package com.impetus.eth.test.util;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.impetus.blkch.sql.DataFrame;
+import com.impetus.blkch.util.Range;
+import com.impetus.eth.parser.EthQueryExecutor;
+
+/**
+ * Executor which answers every scan window with one row per block, holding the block number, and records the
+ * windows it was asked for.
+ */
+public class WindowExecutor extends EthQueryExecutor
+{
+    private List<Range<BigInteger>> windows = new ArrayList<>();
+
+    public WindowExecutor(String sqlText)
+    {
+        super(PlanUtil.getLogicalPlan(sqlText), null, null);
+    }
+
+    @Override
+    public DataFrame executeWindow(Range<BigInteger> window)
+    {
+        windows.add(window);
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = window.getMin().intValue(); i <= window.getMax().intValue(); i++)
+        {
+            data.add(Arrays.asList(BigInteger.valueOf(i)));
+        }
+        return new DataFrame(data, Arrays.asList("blocknumber"), getColumnAliasMapping());
+    }
+
+    public List<Range<BigInteger>> getWindows()
+    {
+        return windows;
+    }
+}